@@ -1,13 +1,23 @@
 package com.example.demo.config;
 
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import com.example.demo.util.ConnectionPoolMetrics;
+import com.example.demo.util.SecondLevelCacheMetrics;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.hibernate.SessionFactory;
 import org.springframework.core.env.Environment;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -17,17 +27,37 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableTransactionManagement
 public class HibernateConfig {
 
+    // 二級快取區域（實體類別上的 @Cache(region = ...) 使用相同名稱）
+    public static final String[] CACHE_REGIONS = {"product", "customer", "user"};
+
     @Autowired
     private Environment env;
 
-    @Bean
+    /**
+     * 建立 HikariCP 連線池
+     * 連線池參數由 application.properties 的 hibernate.hikari.* 讀取，未設定時使用預設值
+     */
+    @Bean(destroyMethod = "close")
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(env.getRequiredProperty("jdbc.driverClassName"));
-        dataSource.setUrl(env.getRequiredProperty("jdbc.url"));
-        dataSource.setUsername(env.getRequiredProperty("jdbc.username"));
-        dataSource.setPassword(env.getRequiredProperty("jdbc.password"));
-        return dataSource;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("eshop-pool");
+        config.setDriverClassName(env.getRequiredProperty("jdbc.driverClassName"));
+        config.setJdbcUrl(env.getRequiredProperty("jdbc.url"));
+        config.setUsername(env.getRequiredProperty("jdbc.username"));
+        config.setPassword(env.getRequiredProperty("jdbc.password"));
+        config.setMaximumPoolSize(env.getProperty("hibernate.hikari.maximumPoolSize", Integer.class, 10));
+        config.setMinimumIdle(env.getProperty("hibernate.hikari.minimumIdle", Integer.class, 5));
+        config.setConnectionTimeout(env.getProperty("hibernate.hikari.connectionTimeout", Long.class, 30000L));
+        config.setIdleTimeout(env.getProperty("hibernate.hikari.idleTimeout", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("hibernate.hikari.maxLifetime", Long.class, 1800000L));
+        // 回報連線池統計資料（管理員後台 /admin/pool-stats 顯示）
+        config.setMetricsTrackerFactory(connectionPoolMetrics());
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
     }
 
     @Bean
@@ -45,9 +75,57 @@ public class HibernateConfig {
         properties.put("hibernate.show_sql", env.getRequiredProperty("hibernate.show_sql"));
         properties.put("hibernate.format_sql", env.getRequiredProperty("hibernate.format_sql"));
         properties.put("hibernate.hbm2ddl.auto", env.getRequiredProperty("hibernate.hbm2ddl.auto"));
+
+        // JDBC 批次寫入（ID 改由 id_generators 配號後才會生效，IDENTITY 會讓 Hibernate 停用批次 INSERT）
+        properties.put("hibernate.jdbc.batch_size", env.getProperty("hibernate.jdbc.batch_size", "20"));
+        properties.put("hibernate.order_inserts", env.getProperty("hibernate.order_inserts", "true"));
+        properties.put("hibernate.order_updates", env.getProperty("hibernate.order_updates", "true"));
+        properties.put("hibernate.jdbc.batch_versioned_data", "true");
+
+        // 二級快取（JCache + Caffeine），各區域的設定由 jcacheManager() 建立
+        boolean useCache = env.getProperty("hibernate.cache.use_second_level_cache", Boolean.class, false);
+        properties.put("hibernate.cache.use_second_level_cache", String.valueOf(useCache));
+        if (useCache) {
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", jcacheManager());
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+        }
+        // 統計資料（快取命中率），由 /admin/cache-stats 顯示
+        properties.put("hibernate.generate_statistics",
+                env.getProperty("hibernate.generate_statistics", "false"));
         return properties;
     }
 
+    /**
+     * 建立二級快取使用的 JCache CacheManager（Caffeine 實作）
+     * 每個區域的最大筆數與存活時間由 application.properties 的 cache.region.{區域}.* 設定
+     * 超過最大筆數時由 Caffeine 依使用頻率淘汰（W-TinyLFU）
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager jcacheManager() {
+        CacheManager cacheManager = Caching
+                .getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        for (String region : CACHE_REGIONS) {
+            if (cacheManager.getCache(region) != null) {
+                continue;
+            }
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(
+                    env.getProperty("cache.region." + region + ".maxSize", Long.class, 10000L)));
+            config.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(
+                    env.getProperty("cache.region." + region + ".ttlSeconds", Long.class, 600L))));
+            config.setStatisticsEnabled(true);
+            cacheManager.createCache(region, config);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public SecondLevelCacheMetrics secondLevelCacheMetrics(SessionFactory sessionFactory) {
+        return new SecondLevelCacheMetrics(sessionFactory, CACHE_REGIONS);
+    }
+
     @Bean
     public HibernateTransactionManager transactionManager() {
         HibernateTransactionManager transactionManager = new HibernateTransactionManager();
@@ -1,11 +1,28 @@
 package com.example.demo.config;
 
+import java.nio.file.Paths;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.ServletContext;
+
+import com.example.demo.service.CatalogSnapshotService;
+import com.example.demo.util.CatalogConditionalGetInterceptor;
+import com.example.demo.util.IdempotencyStore;
+import com.example.demo.util.PageCache;
+import com.example.demo.util.PageCacheInterceptor;
+import com.example.demo.util.PageCachingThymeleafView;
+import com.example.demo.util.ProductImageStore;
+import com.example.demo.util.StaticResourceCompressor;
+import com.example.demo.util.TemplateMetrics;
+import com.example.demo.util.TemplateWarmup;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
@@ -14,6 +31,9 @@ import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.i18n.CookieLocaleResolver;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.spring5.view.ThymeleafViewResolver;
@@ -24,14 +44,37 @@ import org.thymeleaf.templatemode.TemplateMode;
 @ComponentScan(basePackages = "com.example.demo") 
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private static final String TEMPLATE_PREFIX = "/WEB-INF/views/";
+    private static final String TEMPLATE_SUFFIX = ".html";
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private ServletContext servletContext;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    /**
+     * 模板解析器
+     * 
+     * template.cache.enabled=true（正式環境）：解析後的模板存入快取，不再每次讀取與解析檔案
+     * template.cache.ttlSeconds 大於 0 時，快取的模板超過存活時間後重新讀取
+     * 開發時設為 false，修改模板後重新整理頁面即可看到
+     */
     @Bean
     public SpringResourceTemplateResolver templateResolver() {
         SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
-        templateResolver.setPrefix("/WEB-INF/views/");
-        templateResolver.setSuffix(".html");
+        templateResolver.setPrefix(TEMPLATE_PREFIX);
+        templateResolver.setSuffix(TEMPLATE_SUFFIX);
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding("UTF-8");
-        templateResolver.setCacheable(false);
+        templateResolver.setCacheable(env.getProperty("template.cache.enabled", Boolean.class, false));
+        long ttlSeconds = env.getProperty("template.cache.ttlSeconds", Long.class, 0L);
+        if (ttlSeconds > 0) {
+            templateResolver.setCacheTTLMs(TimeUnit.SECONDS.toMillis(ttlSeconds));
+        }
         return templateResolver;
     }
 
@@ -40,34 +83,111 @@ public class WebMvcConfig implements WebMvcConfigurer {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
         templateEngine.setTemplateResolver(templateResolver());
         templateEngine.setEnableSpringELCompiler(true);
+        // 模板快取的最大筆數（超過時淘汰最久沒有使用的模板）
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(env.getProperty("template.cache.maxEntries", Integer.class, 200));
+        templateEngine.setCacheManager(cacheManager);
         return templateEngine;
     }
 
+    @Bean
+    public TemplateMetrics templateMetrics() {
+        return new TemplateMetrics();
+    }
+
+    /**
+     * 啟動時預先解析所有模板（只在開啟模板快取時有效果）
+     */
+    @Bean
+    public TemplateWarmup templateWarmup() {
+        if (!env.getProperty("template.cache.enabled", Boolean.class, false)
+                || !env.getProperty("template.warmup.enabled", Boolean.class, true)) {
+            return null;
+        }
+        return new TemplateWarmup(templateEngine(), servletContext, templateMetrics(),
+                TEMPLATE_PREFIX, TEMPLATE_SUFFIX);
+    }
+
     @Bean
     public ThymeleafViewResolver viewResolver() {
         ThymeleafViewResolver viewResolver = new ThymeleafViewResolver();
         viewResolver.setTemplateEngine(templateEngine());
         viewResolver.setCharacterEncoding("UTF-8");
+        // 記錄各頁面的渲染時間；產品列表與詳細頁渲染後存入頁面快取
+        viewResolver.setViewClass(PageCachingThymeleafView.class);
         return viewResolver;
     }
 
+    /**
+     * 頁面輸出快取（產品列表與產品詳細頁渲染後的 HTML）
+     * 筆數與總位元組數上限由 application.properties 的 page.cache.* 設定
+     */
+    @Bean
+    public PageCache pageCache() {
+        return new PageCache(
+                env.getProperty("page.cache.maxEntries", Integer.class, 2000),
+                env.getProperty("page.cache.maxBytes", Long.class, 64L * 1024 * 1024));
+    }
+
+    /**
+     * 結帳的冪等鍵記錄（客戶 + 表單冪等鍵 → 訂單 ID）
+     * 筆數上限與保留時間由 application.properties 的 order.idempotency.* 設定
+     */
+    @Bean
+    public IdempotencyStore<Long> orderIdempotencyStore() {
+        return new IdempotencyStore<>(
+                env.getProperty("order.idempotency.maxEntries", Integer.class, 10000),
+                TimeUnit.MINUTES.toMillis(env.getProperty("order.idempotency.ttlMinutes", Long.class, 30L)));
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // 靜態資源映射：將 /resources/** 的請求映射到 webapp/resources/ 目錄
         // 例如：/resources/images/products/abc.jpg → webapp/resources/images/products/abc.jpg
+        //
+        // 資源鏈：
+        // 1. VersionResourceResolver：網址加上內容雜湊（abc.jpg → abc-5d41402abc4b2a76.jpg），
+        //    內容改變網址就改變，所以可以讓瀏覽器快取很久
+        // 2. EncodedResourceResolver：瀏覽器支援時回傳預先壓縮的 .br / .gz 檔
+        // 模板中以 @{...} 產生的網址由 web.xml 的 ResourceUrlEncodingFilter 自動換成加上雜湊的網址
+        long maxAgeDays = env.getProperty("static.cache.maxAgeDays", Long.class, 365L);
         registry.addResourceHandler("/resources/**")
-                .addResourceLocations("/resources/");
-        
-        // 如果要使用外部固定目錄儲存圖片（例如：D:/uploads/），請取消以下註解：
-        // registry.addResourceHandler("/uploads/**")
-        //         .addResourceLocations("file:///D:/uploads/")
-        //         .setCachePeriod(3600);  // 快取 1 小時
+                .addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.maxAge(maxAgeDays, TimeUnit.DAYS).cachePublic())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
         
-        // 注意：目前系統使用 webapp/resources/images/products/ 儲存圖片
-        // 如需改用外部目錄，需同時修改：
-        // 1. ProductController 中的 uploadPath
-        // 2. Product.java 中的 getImageUrl() 方法
-        // 3. 取消上方的註解並設定正確路徑
+        // 上傳的產品圖片由 ImageController 以 /images/products/** 傳送（目錄見 productImageStore()）
+    }
+    
+    /**
+     * 產品圖片目錄
+     * 
+     * image.upload.dir 設定時使用該目錄（建議設定在 WAR 以外，重新部署時圖片不會消失），
+     * 未設定時沿用 webapp/resources/images/products/
+     * image.cache.* 設定在記憶體保存的小檔案（縮圖）大小
+     */
+    @Bean
+    public ProductImageStore productImageStore() {
+        String directory = env.getProperty("image.upload.dir", "");
+        if (directory.trim().isEmpty()) {
+            directory = servletContext.getRealPath("/resources/images/products/");
+        }
+        return new ProductImageStore(Paths.get(directory.trim()),
+                env.getProperty("image.cache.maxFileSize", Long.class, 64L * 1024),
+                env.getProperty("image.cache.maxBytes", Long.class, 32L * 1024 * 1024));
+    }
+    
+    /**
+     * 啟動時為 webapp/resources/ 下的 css、js 等文字檔產生 .gz 檔（static.precompress.enabled）
+     */
+    @Bean
+    public StaticResourceCompressor staticResourceCompressor() {
+        if (!env.getProperty("static.precompress.enabled", Boolean.class, true)) {
+            return null;
+        }
+        return new StaticResourceCompressor(servletContext.getRealPath("/resources/"));
     }
     
     /**
@@ -122,5 +242,13 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(localeChangeInterceptor());
+        // 以下放在語系切換之後，ETag 與 key 才會使用切換後的語系
+        // 未變更的頁面先回應 304，不需要查詢頁面快取
+        registry.addInterceptor(new CatalogConditionalGetInterceptor(catalogSnapshotService))
+                .addPathPatterns("/products", "/products/detail/*");
+        if (env.getProperty("page.cache.enabled", Boolean.class, false)) {
+            registry.addInterceptor(new PageCacheInterceptor(pageCache()))
+                    .addPathPatterns("/products", "/products/detail/*");
+        }
     }
 }
\ No newline at end of file
@@ -2,9 +2,19 @@ package com.example.demo.controller;
 
 import com.example.demo.model.Order;
 import com.example.demo.service.CustomerService;
+import com.example.demo.service.InventoryService;
+import com.example.demo.service.OrderEventBus;
 import com.example.demo.service.OrderService;
 import com.example.demo.service.ProductService;
+import com.example.demo.service.impl.OrderEventStatistics;
+import com.example.demo.service.impl.OrderPlacementPipeline;
+import com.example.demo.util.ConnectionPoolMetrics;
+import com.example.demo.util.IdempotencyStore;
+import com.example.demo.util.PageCache;
+import com.example.demo.util.ProductImageStore;
+import com.example.demo.util.SecondLevelCacheMetrics;
 import com.example.demo.util.SessionHelper;
+import com.example.demo.util.TemplateMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +25,7 @@ import javax.servlet.http.HttpSession;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 管理員後台 Controller
@@ -33,6 +44,36 @@ public class AdminController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Autowired
+    private SecondLevelCacheMetrics secondLevelCacheMetrics;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private TemplateMetrics templateMetrics;
+
+    @Autowired
+    private ProductImageStore productImageStore;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private IdempotencyStore<Long> orderIdempotencyStore;
+
+    @Autowired
+    private OrderPlacementPipeline orderPlacementPipeline;
+
+    @Autowired
+    private OrderEventBus orderEventBus;
+
+    @Autowired
+    private OrderEventStatistics orderEventStatistics;
+
     /**
      * 顯示管理員儀表板
      * URL: GET /admin/dashboard
@@ -74,6 +115,128 @@ public class AdminController {
         }
     }
 
+    /**
+     * 連線池統計資料（JSON）
+     * 回傳使用中、閒置、等待中的連線數與取得連線時間直方圖，用於調整連線池大小
+     * URL: GET /admin/pool-stats
+     */
+    @GetMapping("/pool-stats")
+    @ResponseBody
+    public Map<String, Object> showPoolStats() {
+        return connectionPoolMetrics.snapshot();
+    }
+
+    /**
+     * 二級快取統計資料（JSON）
+     * 回傳 Product、Customer、User 快取區域的命中與未命中次數
+     * URL: GET /admin/cache-stats
+     */
+    @GetMapping("/cache-stats")
+    @ResponseBody
+    public Map<String, Object> showCacheStats() {
+        return secondLevelCacheMetrics.snapshot();
+    }
+
+    /**
+     * 頁面輸出快取統計資料（JSON）
+     * 回傳產品列表與詳細頁快取的筆數、位元組數、命中率與淘汰次數
+     * URL: GET /admin/page-cache-stats
+     */
+    @GetMapping("/page-cache-stats")
+    @ResponseBody
+    public Map<String, Object> showPageCacheStats() {
+        return pageCache.snapshot();
+    }
+
+    /**
+     * 模板統計資料（JSON）
+     * 回傳各頁面的模板解析時間與渲染次數、平均、最長渲染時間
+     * URL: GET /admin/template-stats
+     */
+    @GetMapping("/template-stats")
+    @ResponseBody
+    public Map<String, Object> showTemplateStats() {
+        return templateMetrics.snapshot();
+    }
+
+    /**
+     * 產品圖片統計資料（JSON）
+     * 回傳圖片目錄與記憶體中保存的圖片數量、大小
+     * URL: GET /admin/image-cache-stats
+     */
+    @GetMapping("/image-cache-stats")
+    @ResponseBody
+    public Map<String, Object> showImageCacheStats() {
+        return productImageStore.snapshot();
+    }
+
+    /**
+     * 庫存統計資料（JSON）
+     * 回傳扣除、庫存不足（記憶體 / 資料庫拒絕）、歸還次數與記憶體中的庫存數
+     * URL: GET /admin/inventory-stats
+     */
+    @GetMapping("/inventory-stats")
+    @ResponseBody
+    public Map<String, Object> showInventoryStats() {
+        return inventoryService.snapshot();
+    }
+
+    /**
+     * 結帳冪等鍵記錄統計（JSON）
+     * URL: GET /admin/idempotency-stats
+     */
+    @GetMapping("/idempotency-stats")
+    @ResponseBody
+    public Map<String, Object> showIdempotencyStats() {
+        return orderIdempotencyStore.snapshot();
+    }
+
+    /**
+     * 結帳批次寫入統計（JSON）
+     * URL: GET /admin/order-pipeline-stats
+     */
+    @GetMapping("/order-pipeline-stats")
+    @ResponseBody
+    public Map<String, Object> showOrderPipelineStats() {
+        return orderPlacementPipeline.snapshot();
+    }
+
+    /**
+     * 訂單事件統計（JSON）：事件匯流排各監聽器的延遲，以及啟動後的訂單統計
+     * URL: GET /admin/order-events
+     */
+    @GetMapping("/order-events")
+    @ResponseBody
+    public Map<String, Object> showOrderEventStats() {
+        Map<String, Object> stats = orderEventBus.snapshot();
+        stats.put("statistics", orderEventStatistics.snapshot());
+        return stats;
+    }
+
+    /**
+     * 開啟限時搶購（JSON）
+     * 庫存改由記憶體分片扣除，背景批次寫入資料庫
+     * URL: POST /admin/flash-sale/{prodNum}/start
+     */
+    @PostMapping("/flash-sale/{prodNum}/start")
+    @ResponseBody
+    public Map<String, Object> startFlashSale(@PathVariable Long prodNum) {
+        inventoryService.startFlashSale(prodNum);
+        return inventoryService.snapshot();
+    }
+
+    /**
+     * 結束限時搶購（JSON）
+     * 尚未對帳的訂單會先寫入資料庫，之後恢復以資料庫扣除庫存
+     * URL: POST /admin/flash-sale/{prodNum}/end
+     */
+    @PostMapping("/flash-sale/{prodNum}/end")
+    @ResponseBody
+    public Map<String, Object> endFlashSale(@PathVariable Long prodNum) {
+        inventoryService.endFlashSale(prodNum);
+        return inventoryService.snapshot();
+    }
+
     /**
      * 顯示訂單管理頁面
      * URL: GET /admin/orders
@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.ProductPage;
 import com.example.demo.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -8,22 +9,27 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 /**
  * 首頁 Controller
- * 處理首頁的請求，顯示所有產品
+ * 處理首頁的請求，顯示最新的一頁產品（完整列表在 /products 以無限捲動載入）
  */
 @Controller
 public class HomeController {
     
+    //首頁顯示的產品數（模板只處理一頁，不隨目錄大小增加）
+    private static final int HOME_PAGE_SIZE = 24;
+    
     @Autowired
     private ProductService productService;
     
     /**
      * 首頁
-     * 顯示所有產品供使用者選購
+     * 顯示第一頁產品供使用者選購
      */
     @GetMapping("/")
     public String home(Model model) {
-        // 取得所有產品
-        model.addAttribute("products", productService.getAllProducts());
+        // 取得第一頁產品（由目錄快照取得，不查詢資料庫）
+        ProductPage page = productService.getProductPage(null, null, null, null, HOME_PAGE_SIZE);
+        model.addAttribute("products", page.getProducts());
+        model.addAttribute("hasMore", page.hasNext());
         return "home";  // 返回 home.html
     }
 }
\ No newline at end of file
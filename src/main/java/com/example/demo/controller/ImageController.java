@@ -0,0 +1,144 @@
+package com.example.demo.controller;
+
+import com.example.demo.util.ByteRange;
+import com.example.demo.util.ProductImageStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 產品圖片 Controller
+ *
+ * 功能說明：
+ * 1. 從上傳目錄傳送產品圖片（目錄可設定在 WAR 以外，見 image.upload.dir）
+ * 2. 支援 If-None-Match（304）與 Range（206，影片或大圖續傳）
+ * 3. 大檔案以 Tomcat sendfile 或 FileChannel.transferTo 傳送，不經過 Java heap 的緩衝區
+ * 4. 縮圖等小檔案由 ProductImageStore 保存在記憶體
+ *
+ * 檔名是內容的雜湊（內容改變檔名就改變），所以可以讓瀏覽器快取很久
+ *
+ * URL: GET /images/products/{filename}
+ */
+@Controller
+public class ImageController {
+
+    //Tomcat 支援 sendfile 時會設定這個 request 屬性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    //瀏覽器快取時間（1 年）
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+    //錯誤回應不可快取（否則瀏覽器、CDN 會把 404 / 416 記住一年）
+    private static final String NO_STORE = "no-store";
+
+    @Autowired
+    private ProductImageStore productImageStore;
+
+    @GetMapping("/images/products/{filename:.+}")
+    public void serveImage(@PathVariable String filename,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        Path file = productImageStore.resolve(filename);
+        BasicFileAttributes attributes;
+        try {
+            if (file == null) {
+                throw new NoSuchFileException(filename);
+            }
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.setHeader("Cache-Control", NO_STORE);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.setHeader("Cache-Control", NO_STORE);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        response.setHeader("Accept-Ranges", "bytes");
+        // 未變更時設定 304 並結束
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        // If-Range 與目前的 ETag 不同時（檔案已換過），忽略 Range 回傳整個檔案
+        String ifRange = request.getHeader("If-Range");
+        ByteRange range = ifRange == null || ifRange.equals(etag)
+                ? ByteRange.parse(request.getHeader("Range"), length)
+                : null;
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader("Cache-Control", NO_STORE);
+            response.setHeader("Content-Range", "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        long start = 0;
+        long count = length;
+        if (range != null) {
+            start = range.getStart();
+            count = range.getLength();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.toContentRange(length));
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(filename)
+                .map(Object::toString)
+                .orElse("application/octet-stream"));
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        // 小檔案：由記憶體傳送
+        byte[] bytes = productImageStore.getSmallFile(filename, file, attributes);
+        if (bytes != null) {
+            response.getOutputStream().write(bytes, (int) start, (int) count);
+            return;
+        }
+
+        // 大檔案：交給 Tomcat 以 sendfile 直接從檔案傳到 socket
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        // 不支援 sendfile 時以 transferTo 傳送（由 JDK 決定是否能避免複製）
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.example.demo.model.Customer;
 import com.example.demo.model.Order;
 import com.example.demo.service.CartService;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.impl.OrderPlacementPipeline;
+import com.example.demo.util.IdempotencyStore;
 import com.example.demo.util.SessionHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -16,6 +18,13 @@ import javax.servlet.http.HttpSession;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 
 /**
  * 訂單 Controller
@@ -25,9 +34,20 @@ import java.util.List;
 @RequestMapping("/orders")
 public class OrderController {
 
+    //結帳表單的冪等鍵格式（UUID），格式不符時不去除重複
+    private static final Pattern IDEMPOTENCY_KEY = Pattern.compile("[0-9a-fA-F-]{1,64}");
+
     @Autowired
     private OrderService orderService;
 
+    // 重複送出結帳表單時回傳第一次建立的訂單 ID
+    @Autowired
+    private IdempotencyStore<Long> orderIdempotencyStore;
+
+    // 結帳批次寫入（order.pipeline.enabled=false 時直接呼叫 OrderService）
+    @Autowired
+    private OrderPlacementPipeline orderPlacementPipeline;
+
     @Autowired
     private CartService cartService;
 
@@ -73,6 +93,8 @@ public class OrderController {
             // 傳遞資料到前端
             model.addAttribute("cart", cart);
             model.addAttribute("customer", customer);
+            // 每次開啟結帳頁面產生新的冪等鍵，重複點擊或重新送出同一份表單只會建立一張訂單
+            model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
             
             System.out.println("✓ 購物車項目數：" + cart.getCartItems().size());
             System.out.println("✓ 總金額：" + cart.getTotalAmount());
@@ -101,6 +123,7 @@ public class OrderController {
             @RequestParam String recipientPhone,
             @RequestParam String shippingAddress,
             @RequestParam(required = false) String orderNote,
+            @RequestParam(required = false) String idempotencyKey,
             HttpSession session,
             Model model) {
         
@@ -124,25 +147,27 @@ public class OrderController {
             }
             
             // 呼叫 Service 建立訂單
-            Order order = orderService.createOrderFromCart(
-                customerId,
-                recipientName,
-                recipientPhone,
-                shippingAddress,
-                orderNote
-            );
+            // 相同客戶的相同冪等鍵只建立一次：重複的請求等待同一筆結帳，並導向同一張訂單
+            // （等待逾時時訂單仍在排隊，記錄會保留到結帳完成，重送不會再建立一次）
+            CompletableFuture<Long> placement;
+            if (idempotencyKey != null && IDEMPOTENCY_KEY.matcher(idempotencyKey).matches()) {
+                placement = orderIdempotencyStore.executeAsync(customerId + ":" + idempotencyKey,
+                        () -> submitOrder(customerId, recipientName, recipientPhone, shippingAddress, orderNote));
+            } else {
+                placement = submitOrder(customerId, recipientName, recipientPhone, shippingAddress, orderNote);
+            }
+            Long orderId = awaitOrder(placement);
             
             System.out.println("✓ 訂單建立成功");
-            System.out.println("✓ 訂單編號：" + order.getOrderNumber());
-            System.out.println("✓ 訂單 ID：" + order.getOrderId());
+            System.out.println("✓ 訂單 ID：" + orderId);
             System.out.println("====================================");
             
             // 導向訂單明細頁面
             try {
                 String message = URLEncoder.encode("訂單建立成功", "UTF-8");
-                return "redirect:/orders/" + order.getOrderId() + "?message=" + message;
+                return "redirect:/orders/" + orderId + "?message=" + message;
             } catch (UnsupportedEncodingException e) {
-                return "redirect:/orders/" + order.getOrderId();
+                return "redirect:/orders/" + orderId;
             }
             
         } catch (RuntimeException e) {
@@ -331,4 +356,39 @@ public class OrderController {
             }
         }
     }
+
+    /**
+     * 送出建立訂單的請求（開啟批次寫入時與其他結帳請求合併成一個交易）
+     * @return 交易提交後完成的訂單 ID
+     */
+    private CompletableFuture<Long> submitOrder(Long customerId, String recipientName, String recipientPhone,
+                                                String shippingAddress, String orderNote) {
+        return orderPlacementPipeline.submit(customerId, recipientName, recipientPhone,
+                shippingAddress, orderNote)
+                .thenApply(Order::getOrderId);
+    }
+
+    /**
+     * 等待訂單交易提交，最多等待 order.pipeline.timeoutMillis 毫秒
+     * @return 訂單 ID
+     */
+    private Long awaitOrder(CompletableFuture<Long> placement) {
+        try {
+            return placement.get(orderPlacementPipeline.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // 取出 Service 拋出的例外，錯誤訊息顯示在結帳頁面
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("建立訂單失敗，請稍後再試", cause);
+        } catch (TimeoutException e) {
+            // 訂單可能仍在寫入，不能直接當作失敗
+            throw new RuntimeException("結帳處理逾時，請至「我的訂單」確認訂單是否已建立");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("結帳已中斷，請至「我的訂單」確認訂單是否已建立");
+        }
+    }
 }
\ No newline at end of file
@@ -1,23 +1,29 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductPage;
+import com.example.demo.model.ProductTypeFacet;
+import com.example.demo.service.InventoryService;
+import com.example.demo.service.ProductAutocompleteService;
+import com.example.demo.service.ProductFacetService;
+import com.example.demo.service.ProductImageService;
 import com.example.demo.service.ProductService;
 import com.example.demo.util.FileUploadUtil;
+import com.example.demo.util.ProductImageStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.servlet.ServletContext;
-
-import java.io.File;
 //import java.nio.file.Files;
 //import java.nio.file.Path;
 //import java.nio.file.Paths;
 //import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 產品控制器
@@ -30,17 +36,36 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
-    // 注入 ServletContext 用於取得檔案上傳路徑
     @Autowired
-    private ServletContext servletContext;
+    private ProductFacetService productFacetService;
+    
+    @Autowired
+    private ProductAutocompleteService productAutocompleteService;
+    
+    @Autowired
+    private ProductImageService productImageService;
+    
+    // 產品圖片目錄與網址
+    @Autowired
+    private ProductImageStore productImageStore;
+    
+    // 庫存（修改產品時設定）
+    @Autowired
+    private InventoryService inventoryService;
+
+    //產品列表每頁筆數
+    private static final int PAGE_SIZE = 24;
+
+    //自動完成預設的提示筆數
+    private static final int AUTOCOMPLETE_LIMIT = 8;
 
     /**
-     * ⭐ 顯示產品列表（支援搜尋和篩選）
+     * ⭐ 顯示產品列表（支援搜尋、篩選與分頁）
      * 
      * 功能說明：
-     * 1. 接收搜尋關鍵字、類型篩選、排序方式等參數
-     * 2. 根據參數查詢產品
-     * 3. 返回產品列表頁面
+     * 1. 接收搜尋關鍵字、類型篩選、排序方式、分頁游標等參數
+     * 2. 根據參數取得一頁產品（排序與分頁由目錄快照完成，不查詢資料庫）
+     * 3. 返回產品列表頁面，並提供下一頁的游標
      * 
      * URL: GET /products
      * URL 範例：
@@ -49,10 +74,12 @@ public class ProductController {
      * - /products?type=電子產品 （篩選電子產品）
      * - /products?sort=price_asc （價格由低到高排序）
      * - /products?keyword=手機&type=電子產品&sort=price_asc （組合條件）
+     * - /products?sort=price_asc&cursor=xxxx （下一頁）
      * 
      * @param keyword 搜尋關鍵字（可選，用於搜尋產品名稱）
      * @param type 產品類型（可選，用於篩選類型）
      * @param sort 排序方式（可選，price_asc/price_desc/name_asc/name_desc）
+     * @param cursor 分頁游標（可選，上一頁回傳的 nextCursor）
      * @param model Spring MVC Model，用於傳遞資料到視圖
      * @return 產品列表頁面
      */
@@ -62,48 +89,37 @@ public class ProductController {
             @RequestParam(required = false) String keyword,  // 接收搜尋關鍵字參數
             @RequestParam(required = false) String type,     // 接收產品類型參數
             @RequestParam(required = false) String sort,     // 接收排序方式參數
+            @RequestParam(required = false) String cursor,   // 接收分頁游標參數
             Model model) {
         
         System.out.println("========== 產品列表請求 ==========");
         System.out.println("搜尋關鍵字: " + keyword);
         System.out.println("產品類型: " + type);
         System.out.println("排序方式: " + sort);
+        System.out.println("分頁游標: " + cursor);
         
         try {
-            List<Product> products;
+            // 查詢一頁產品（關鍵字、類型、排序皆可為空）
+            ProductPage page = productService.getProductPage(keyword, type, sort, cursor, PAGE_SIZE);
             
-            // 根據參數決定查詢方式
-            
-            // 有搜尋關鍵字或類型篩選
-            if ((keyword != null && !keyword.trim().isEmpty()) || 
-                (type != null && !type.trim().isEmpty())) {
-                
-                System.out.println("✓ 執行搜尋/篩選");
-                
-                // 呼叫 Service 的搜尋方法
-                products = productService.searchProducts(keyword, type, sort);
-                
-            } else {
-                // 沒有任何篩選條件，顯示所有產品
-                System.out.println("✓ 顯示所有產品");
-                
-                // 根據排序方式取得產品
-                if (sort != null && !sort.trim().isEmpty()) {
-                    products = productService.getAllProductsSorted(sort);
-                } else {
-                    products = productService.getAllProducts();
-                }
-            }
-            
-         // 加入產品類型列表到 Model
-            List<String> productTypes = productService.getAllProductTypes();
-            model.addAttribute("productTypes", productTypes);
-            System.out.println("✓ 產品類型：" + productTypes);
+         // 加入產品類型與各類型數量到 Model（快取，不會每次查詢資料庫）
+            List<ProductTypeFacet> productTypeFacets = productFacetService.getTypeFacets();
+            model.addAttribute("productTypeFacets", productTypeFacets);
+            System.out.println("✓ 產品類型：" + productTypeFacets);
             
             // 將結果加入 Model 
-            model.addAttribute("products", products);
+            model.addAttribute("products", page.getProducts());
+            
+            // 分頁連結：保留目前的篩選條件，只替換游標
+            boolean firstPage = cursor == null || cursor.isEmpty();
+            if (!firstPage) {
+                model.addAttribute("firstPageUrl", buildListUrl(keyword, type, sort, null));
+            }
+            if (page.hasNext()) {
+                model.addAttribute("nextPageUrl", buildListUrl(keyword, type, sort, page.getNextCursor()));
+            }
             
-            System.out.println("✓ 找到 " + products.size() + " 項產品");
+            System.out.println("✓ 本頁 " + page.getProducts().size() + " 項產品，有下一頁：" + page.hasNext());
             System.out.println("====================================");
             
             return "products";
@@ -120,6 +136,49 @@ public class ProductController {
         }
     }  
     
+    /**
+     * 搜尋框自動完成（JSON）
+     * 
+     * 功能說明：
+     * 依使用者輸入的字首回傳產品名稱，銷量高的排在前面
+     * 資料來自記憶體中的字首樹，不查詢資料庫
+     * 
+     * URL: GET /products/autocomplete?q=藍牙&limit=8
+     * 回傳範例：["藍牙耳機", "藍牙喇叭"]
+     * 
+     * @param q 使用者目前輸入的文字
+     * @param limit 最多回傳幾筆（最多 10 筆）
+     * @return 產品名稱 List
+     */
+    @GetMapping("/autocomplete")
+    @ResponseBody
+    public List<String> autocomplete(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "" + AUTOCOMPLETE_LIMIT) int limit) {
+        return productAutocompleteService.suggest(q, limit);
+    }
+    
+    /**
+     * 組合產品列表 URL（只加入有值的參數）
+     * 例如：/products?type=電子產品&sort=price_asc&cursor=xxxx
+     */
+    private String buildListUrl(String keyword, String type, String sort, String cursor) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath("/products");
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            builder.queryParam("keyword", keyword);
+        }
+        if (type != null && !type.trim().isEmpty()) {
+            builder.queryParam("type", type);
+        }
+        if (sort != null && !sort.trim().isEmpty()) {
+            builder.queryParam("sort", sort);
+        }
+        if (cursor != null) {
+            builder.queryParam("cursor", cursor);
+        }
+        return builder.encode().toUriString();
+    }
+    
     /**
      * 顯示新增產品表單
      * URL: GET /products/add
@@ -142,6 +201,8 @@ public class ProductController {
         
         try {
             Product product = productService.getProductById(id);
+            // 二級快取中的庫存可能已被結帳扣除，顯示資料庫目前的值
+            product.setStock(inventoryService.getStock(id));
             model.addAttribute("product", product);
             
             System.out.println("✓ 找到產品：" + product.getProdName());
@@ -188,24 +249,15 @@ public class ProductController {
        try {        
            // 處理圖片上傳 
            if (imageFile != null && !imageFile.isEmpty()) {
-               // 取得上傳目錄的實際路徑（使用 Tomcat webapps 目錄）
-               String uploadPath = servletContext.getRealPath("/resources/images/products/");
+               // 取得上傳目錄（image.upload.dir，未設定時為 webapp/resources/images/products/）
+               String uploadPath = productImageStore.getDirectory().toString();
                System.out.println("✓ 上傳路徑：" + uploadPath);
                
-               // 確保目錄存在
-               File uploadDir = new File(uploadPath);
-               if (!uploadDir.exists()) {
-                   boolean created = uploadDir.mkdirs();
-                   if (created) {
-                       System.out.println("✓ 建立上傳目錄：" + uploadPath);
-                   }
-               }
-               
                // 儲存檔案並取得新檔名
                String savedFilename = FileUploadUtil.saveFile(imageFile, uploadPath);
                
                // 儲存完整的相對路徑到資料庫
-               String imageUrl = "/resources/images/products/" + savedFilename;
+               String imageUrl = productImageStore.toUrl(savedFilename);
                product.setProdImage(imageUrl);
                
                System.out.println("✓ 圖片已儲存：" + savedFilename);
@@ -217,6 +269,11 @@ public class ProductController {
            // 儲存產品到資料庫
            productService.saveProduct(product);
            
+           // 在背景產生列表頁使用的縮圖（不等待完成）
+           if (product.hasImage()) {
+               productImageService.generateVariants(product.getProdNum(), product.getProdImage());
+           }
+           
            System.out.println("產品新增成功");
            System.out.println("====================================");
            
@@ -246,6 +303,7 @@ public class ProductController {
            @ModelAttribute Product product,
            @RequestParam(value = "imageFile", required = false) MultipartFile imageFile,
            @RequestParam(value = "oldImage", required = false) String oldImage,
+           @RequestParam(value = "originalStock", required = false) Integer originalStock,
            Model model) {
        
        System.out.println("========== 更新產品 ==========");
@@ -263,21 +321,14 @@ public class ProductController {
            if (imageFile != null && !imageFile.isEmpty()) {
                // 有上傳新圖片
                
-               // 取得上傳目錄的實際路徑
-               String uploadPath = servletContext.getRealPath("/resources/images/products/");
+               // 取得上傳目錄
+               String uploadPath = productImageStore.getDirectory().toString();
                
-               // 刪除舊圖片（如果舊圖片是完整路徑，需要提取檔名）
-               if (oldImage != null && !oldImage.isEmpty()) {
-                   // 從 URL 中提取檔名：/resources/images/products/abc.jpg → abc.jpg
-                   String oldFilename = oldImage.substring(oldImage.lastIndexOf('/') + 1);
-                   FileUploadUtil.deleteFile(oldFilename, uploadPath);
-               }
-               
-               // 儲存新圖片
+               // 先儲存新圖片：檔案驗證失敗時直接拋出例外，舊圖片與縮圖都還保留
                String savedFilename = FileUploadUtil.saveFile(imageFile, uploadPath);
                
                // 儲存完整的相對路徑到資料庫
-               String imageUrl = "/resources/images/products/" + savedFilename;
+               String imageUrl = productImageStore.toUrl(savedFilename);
                product.setProdImage(imageUrl);
                
                System.out.println("✓ 新圖片已儲存：" + savedFilename);
@@ -289,8 +340,21 @@ public class ProductController {
                System.out.println("○ 保留舊圖片 URL：" + oldImage);
            }
            
-           // 更新產品到資料庫
-           productService.updateProduct(id, product);
+           // 更新產品到資料庫（管理員有修改庫存時一併設定，與其他欄位在同一個交易中）
+           productService.updateProduct(id, product, !Objects.equals(product.getStock(), originalStock));
+           
+           // 圖片網址有變更時：刪除舊圖片與縮圖，並在背景產生新的縮圖
+           // 相同內容的圖片只儲存一份（網址相同），重新上傳同一張圖片時保留原本的檔案與縮圖
+           if (!Objects.equals(product.getProdImage(), oldImage)) {
+               if (oldImage != null && !oldImage.isEmpty()
+                       && !productService.isImageUsedByOthers(oldImage, id)) {
+                   // 從 URL 中提取檔名：/images/products/abc.jpg → abc.jpg
+                   FileUploadUtil.deleteFile(ProductImageStore.filename(oldImage),
+                           productImageStore.getDirectory().toString());
+                   productImageService.deleteVariants(oldImage);
+               }
+               productImageService.generateVariants(id, product.getProdImage());
+           }
            
            System.out.println("✓ 產品更新成功");
            System.out.println("====================================");
@@ -342,14 +406,16 @@ public class ProductController {
           // 刪除產品資料
           productService.deleteProduct(id);
           
-          // 刪除圖片檔案
-          if (imageName != null && !imageName.isEmpty()) {
-              String uploadPath = servletContext.getRealPath("/resources/images/products/");
+          // 刪除圖片檔案（其他產品還在使用相同的圖片時不刪除）
+          if (imageName != null && !imageName.isEmpty()
+                  && !productService.isImageUsedByOthers(imageName, id)) {
+              String uploadPath = productImageStore.getDirectory().toString();
               
-              // 從 URL 中提取檔名：/resources/images/products/abc.jpg → abc.jpg
-              String filename = imageName.substring(imageName.lastIndexOf('/') + 1);
+              // 從 URL 中提取檔名：/images/products/abc.jpg → abc.jpg
+              String filename = ProductImageStore.filename(imageName);
               
               FileUploadUtil.deleteFile(filename, uploadPath);
+              productImageService.deleteVariants(imageName);
               System.out.println("✓ 已刪除圖片檔案：" + filename);
           }
           
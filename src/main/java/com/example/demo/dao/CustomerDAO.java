@@ -14,4 +14,6 @@ public interface CustomerDAO {
     Customer findByUsername(String username); 
     // 根據 Email 查詢
     Customer findByEmail(String email);
+    // 取得顧客總筆數（SELECT COUNT(*)）
+    long count();
 }
\ No newline at end of file
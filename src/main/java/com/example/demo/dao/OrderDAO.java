@@ -4,6 +4,7 @@ package com.example.demo.dao;  // 定義套件
 import com.example.demo.model.Customer;  // 客戶實體類別
 import com.example.demo.model.Order;  // 訂單實體類別
 import com.example.demo.model.OrderStatus;  // 訂單狀態枚舉
+import java.util.Collection;  // Collection 介面
 import java.util.List;  // List 介面
 
 /**
@@ -22,6 +23,14 @@ public interface OrderDAO {  // 定義 OrderDAO 介面
      */
     Order findById(Long id);
     
+    /**
+     * 根據 ID 查詢訂單並鎖定資料列到交易結束（SELECT ... FOR UPDATE）
+     * 取消訂單、修改狀態時使用：同時修改同一張訂單的交易依序執行，不會重複歸還庫存
+     * @param id 訂單 ID（主鍵）
+     * @return 訂單物件，如果找不到則回傳 null
+     */
+    Order findByIdForUpdate(Long id);
+    
     /**
      * 根據訂單編號查詢
      * 訂單編號是對外顯示的編號（例如：ORD20250101001）
@@ -38,6 +47,15 @@ public interface OrderDAO {  // 定義 OrderDAO 介面
      */
     List<Order> findAll();
     
+    /**
+     * 查詢最近的訂單
+     * 管理員儀表板顯示最近訂單時使用
+     * 只讀取 limit 筆（ORDER BY created_date DESC LIMIT ?），並一併載入客戶資料
+     * @param limit 要取得的訂單數量
+     * @return 最近的訂單 List（最新的在前）
+     */
+    List<Order> findRecent(int limit);
+    
     /**
      * 根據客戶查詢訂單
      * 查詢特定客戶的所有訂單（例如：查看「我的訂單」）
@@ -46,6 +64,32 @@ public interface OrderDAO {  // 定義 OrderDAO 介面
      */
     List<Order> findByCustomer(Customer customer);
     
+    /**
+     * 查詢所有訂單（含客戶與訂單項目）
+     * 與 findAll 相同，但以一條 SQL 一併載入客戶與訂單項目
+     * 用於管理員訂單列表，避免畫面逐筆載入客戶和訂單項目（N+1 查詢）
+     * @return 所有訂單的 List（最新的在前）
+     */
+    List<Order> findAllWithDetails();
+    
+    /**
+     * 根據客戶查詢訂單（含客戶與訂單項目）
+     * 與 findByCustomer 相同，但以一條 SQL 一併載入客戶與訂單項目
+     * 用於「我的訂單」頁面
+     * @param customer 客戶物件
+     * @return 該客戶的所有訂單 List（最新的在前）
+     */
+    List<Order> findByCustomerWithDetails(Customer customer);
+    
+    /**
+     * 根據訂單狀態查詢（含客戶與訂單項目）
+     * 與 findByStatus 相同，但以一條 SQL 一併載入客戶與訂單項目
+     * 用於管理員訂單列表的狀態篩選
+     * @param status 訂單狀態枚舉
+     * @return 符合該狀態的所有訂單 List（最新的在前）
+     */
+    List<Order> findByStatusWithDetails(OrderStatus status);
+    
     /**
      * 根據訂單狀態查詢
      * 查詢特定狀態的所有訂單（例如：查看所有「待付款」的訂單）
@@ -54,6 +98,16 @@ public interface OrderDAO {  // 定義 OrderDAO 介面
      */
     List<Order> findByStatus(OrderStatus status);
     
+    /**
+     * 以前綴搜尋訂單
+     * 訂單編號、客戶姓名或收件人姓名「以關鍵字開頭」的訂單
+     * 三個欄位皆有索引，資料庫只需讀取符合的索引範圍，不需掃描整個 orders 資料表
+     * @param prefix 搜尋關鍵字（前綴）
+     * @param limit 最多回傳幾筆（依建立時間由新到舊）
+     * @return 符合條件的訂單 List（已一併載入客戶資料）
+     */
+    List<Order> searchByPrefix(String prefix, int limit);
+    
     /**
      * 儲存或更新訂單
      * 如果訂單是新的（ID 為 null），則新增到資料庫
@@ -69,4 +123,34 @@ public interface OrderDAO {  // 定義 OrderDAO 介面
      * @param id 訂單 ID
      */
     void delete(Long id);
-}
\ No newline at end of file
+    
+    /**
+     * 取得尚未寫入資料庫庫存的限時搶購訂單 ID（啟動時復原使用）
+     * @param limit 最多回傳幾筆
+     * @return 訂單 ID List（依 ID 排序）
+     */
+    List<Long> findStockPendingIds(int limit);
+    
+    /**
+     * 鎖定尚未寫入資料庫庫存的訂單（SELECT ... FOR UPDATE）
+     * 已對帳或已取消的訂單不會回傳，同一筆訂單不會被扣除兩次
+     * @param orderIds 訂單 ID
+     * @return 仍未寫入的訂單 ID List
+     */
+    List<Long> lockStockPending(Collection<Long> orderIds);
+    
+    /**
+     * 清除「尚未寫入資料庫庫存」標記
+     * SQL 等價語句：UPDATE orders SET stock_pending = FALSE WHERE order_id IN (...) AND stock_pending = TRUE
+     * @param orderIds 訂單 ID
+     * @return 實際清除的筆數
+     */
+    int clearStockPending(Collection<Long> orderIds);
+    
+    /**
+     * 取得訂單總筆數
+     * 使用 SELECT COUNT(*)，不需載入任何實體
+     * @return 訂單總筆數
+     */
+    long count();
+}
@@ -1,7 +1,9 @@
 package com.example.demo.dao;
 
 import com.example.demo.model.OrderItem;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface OrderItemDAO {
     List<OrderItem> findAll();
@@ -9,4 +11,29 @@ public interface OrderItemDAO {
     void save(OrderItem orderItem);
     void delete(Long id);
     List<OrderItem> findByOrderId(Long orderId);
-}
\ No newline at end of file
+    
+    /**
+     * 統計各產品的銷售數量（不含已取消的訂單）
+     * 
+     * SQL 等價語句：
+     * SELECT i.prod_num, SUM(i.quantity) FROM order_items i
+     * JOIN orders o ON o.order_id = i.order_id
+     * WHERE o.order_status <> 'CANCELLED' GROUP BY i.prod_num
+     * 
+     * @return 產品編號 → 銷售數量
+     */
+    Map<Long, Long> sumQuantityByProduct();
+    
+    /**
+     * 統計指定訂單中尚未寫入資料庫庫存的項目（限時搶購商品）各產品的數量（限時搶購對帳使用）
+     * 同一張訂單中的一般商品在結帳時已扣除資料庫庫存，不包含在內
+     * 
+     * SQL 等價語句：
+     * SELECT prod_num, SUM(quantity) FROM order_items
+     * WHERE order_id IN (...) AND (stock_pending = TRUE OR stock_pending IS NULL) GROUP BY prod_num
+     * 
+     * @param orderIds 訂單 ID
+     * @return 產品編號 → 數量（依產品編號排序）
+     */
+    Map<Long, Integer> sumPendingQuantityByProduct(Collection<Long> orderIds);
+}
@@ -1,6 +1,8 @@
 package com.example.demo.dao;
 
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductTypeFacet;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -80,6 +82,107 @@ public interface ProductDAO {
      * 
      * @return 所有產品類型的 List（已排序，無重複）
      */
-    List<String> findAllProductTypes();    
+    List<String> findAllProductTypes();
     
-}
\ No newline at end of file
+    /**
+     * 取得所有產品類型與各類型的產品數量
+     * 
+     * SQL 等價語句：
+     * SELECT prod_type, COUNT(*) FROM products
+     * WHERE prod_type IS NOT NULL GROUP BY prod_type ORDER BY prod_type
+     * 
+     * @return 產品類型統計的 List（依類型排序）
+     */
+    List<ProductTypeFacet> findTypeFacets();
+    
+    /**
+     * 根據多個 ID 查詢產品
+     * 
+     * 功能說明：
+     * 1. 回傳順序與傳入的 ID 順序相同（全文搜尋依相關程度排序後使用）
+     * 2. 已在二級快取中的產品不會查詢資料庫，其餘以一條 IN 查詢載入
+     * 3. 不存在的 ID 會被略過
+     * 
+     * @param ids 產品 ID List
+     * @return 產品 List
+     */
+    List<Product> findByIds(List<Long> ids);
+    
+    /**
+     * 查詢目前的庫存（直接讀取資料庫，不使用二級快取）
+     * 
+     * @param id 產品 ID
+     * @return 庫存數量，產品不追蹤庫存時返回 null
+     * @throws RuntimeException 產品不存在
+     */
+    Integer findStock(Long id);
+    
+    /**
+     * 扣除庫存（條件式更新，庫存不足時不扣除）
+     * 
+     * SQL 等價語句：
+     * UPDATE products SET prod_stock = prod_stock - ?
+     * WHERE prod_num = ? AND (prod_stock IS NULL OR prod_stock >= ?)
+     * AND (prod_flash_sale IS NULL OR prod_flash_sale = FALSE)
+     * 
+     * 只鎖定該產品的資料列，不同產品的結帳不會互相等待
+     * 限時搶購中的產品不扣除（庫存已交給記憶體中的分片，由對帳寫入）
+     * 
+     * @param id 產品 ID
+     * @param quantity 數量
+     * @return true 表示已扣除（或產品不追蹤庫存），false 表示庫存不足或限時搶購中
+     */
+    boolean decreaseStock(Long id, int quantity);
+    
+    /**
+     * 增減庫存（不檢查數量，不追蹤庫存的產品不變）
+     * 取消訂單時歸還；限時搶購對帳時以負數扣除已在記憶體中扣除的數量
+     * 
+     * @param id 產品 ID
+     * @param quantity 數量（負數表示扣除）
+     */
+    void increaseStock(Long id, int quantity);
+    
+    /**
+     * 設定庫存（管理員修改產品時使用）
+     * 
+     * @param id 產品 ID
+     * @param stock 庫存數量，null 表示不追蹤庫存
+     */
+    void updateStock(Long id, Integer stock);
+    
+    /**
+     * 取得限時搶購中的產品編號
+     * 
+     * @return 產品編號 List
+     */
+    List<Long> findFlashSaleIds();
+    
+    /**
+     * 開啟或結束限時搶購
+     * 
+     * @param id 產品 ID
+     * @param flashSale true 表示開啟
+     */
+    void updateFlashSale(Long id, boolean flashSale);
+    
+    /**
+     * 記錄已產生的縮圖寬度
+     * 只更新縮圖欄位與最後修改時間，不會覆蓋管理員同時修改的其他欄位；
+     * 產品圖片已被換掉時不更新。交易提交後清除這個產品的二級快取
+     * 
+     * @param id 產品 ID
+     * @param imageUrl 產生縮圖時的產品圖片路徑
+     * @param variants 縮圖寬度（例如 "320,640"）
+     * @param updatedDate 最後修改時間
+     * @return 是否已更新（產品不存在或圖片已換掉時為 false）
+     */
+    boolean updateImageVariants(Long id, String imageUrl, String variants, Date updatedDate);
+    
+    /**
+     * 取得產品總筆數
+     * 使用 SELECT COUNT(*)，不需載入任何實體
+     * @return 產品總筆數
+     */
+    long count();
+}
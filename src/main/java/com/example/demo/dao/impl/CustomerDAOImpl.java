@@ -214,4 +214,19 @@ public class CustomerDAOImpl implements CustomerDAO {
         // 返回單一結果
         return query.uniqueResult();
     }
-}
\ No newline at end of file
+    
+    /**
+     * 取得顧客總筆數
+     * 
+     * SQL 等價語句：
+     * SELECT COUNT(*) FROM customers
+     * 
+     * @return 顧客總筆數
+     */
+    @Override
+    public long count() {
+        return getCurrentSession()
+            .createQuery("SELECT COUNT(c) FROM Customer c", Long.class)
+            .uniqueResult();
+    }
+}
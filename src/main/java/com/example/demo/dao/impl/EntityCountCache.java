@@ -0,0 +1,165 @@
+package com.example.demo.dao.impl;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 資料筆數快取
+ *
+ * 功能說明：
+ * 1. 第一次查詢時以 COUNT(*) 載入筆數，之後直接回傳記憶體中的值
+ * 2. 透過 Hibernate 的交易提交後事件（POST_COMMIT_INSERT / POST_COMMIT_DELETE）
+ *    在新增、刪除成功提交後增減筆數，交易回滾時不會影響計數
+ * 3. 由 application.properties 的 count.cache.enabled 開關，關閉時每次都查詢資料庫
+ * 4. 載入超過 count.cache.refreshSeconds 秒後重新 COUNT(*)：
+ *    事件只涵蓋 Hibernate 的 save / delete，批次 HQL、原生 SQL 刪除不會觸發；
+ *    COUNT(*) 執行期間同時提交的新增、刪除也可能被重複計算或漏掉，
+ *    定期重新載入讓這些誤差最多維持 refreshSeconds 秒
+ *
+ * 注意：以批次 HQL 或原生 SQL 新增、刪除資料後請呼叫 invalidate()，下次查詢就會重新載入
+ */
+@Component
+public class EntityCountCache implements InitializingBean,
+        PostCommitInsertEventListener, PostCommitDeleteEventListener {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private Environment env;
+
+    //各實體類別目前的筆數（尚未載入的類別不會出現在 Map 中）
+    private final Map<Class<?>, Counter> counters = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+    private long refreshNanos;
+
+    /**
+     * 註冊 Hibernate 事件監聽器（Spring 注入完成後呼叫）
+     */
+    @Override
+    public void afterPropertiesSet() {
+        enabled = env.getProperty("count.cache.enabled", Boolean.class, false);
+        refreshNanos = TimeUnit.SECONDS.toNanos(env.getProperty("count.cache.refreshSeconds", Long.class, 60L));
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * 取得實體筆數
+     *
+     * @param entityClass 實體類別
+     * @param loader 實際查詢資料庫的方法（例如 productDAO::count）
+     * @return 筆數
+     */
+    public long count(Class<?> entityClass, LongSupplier loader) {
+        if (!enabled) {
+            return loader.getAsLong();
+        }
+        long now = System.nanoTime();
+        Counter counter = counters.get(entityClass);
+        if (counter == null || counter.isExpired(now, refreshNanos)) {
+            // 第一次查詢或已過期：重新載入（同一類別同時只有一個請求執行 COUNT(*)，其他請求等待結果）
+            counter = counters.compute(entityClass, (key, current) ->
+                    current != null && !current.isExpired(now, refreshNanos)
+                            ? current
+                            : new Counter(loader.getAsLong(), System.nanoTime()));
+        }
+        return counter.value.get();
+    }
+
+    /**
+     * 清除某個實體類別的筆數，下次查詢時重新以 COUNT(*) 載入
+     * （以批次 HQL 或原生 SQL 新增、刪除資料後呼叫）
+     */
+    public void invalidate(Class<?> entityClass) {
+        counters.remove(entityClass);
+    }
+
+    /**
+     * 清除快取，下次查詢時重新以 COUNT(*) 載入
+     */
+    public void reset() {
+        counters.clear();
+    }
+
+    // ========== Hibernate 交易提交後事件 ==========
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Counter counter = counters.get(event.getPersister().getMappedClass());
+        if (counter != null) {
+            counter.value.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Counter counter = counters.get(event.getPersister().getMappedClass());
+        if (counter != null) {
+            counter.value.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // 交易失敗，資料未寫入，不需調整筆數
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // 交易失敗，資料未刪除，不需調整筆數
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    //介面中仍是抽象方法，必須實作（Hibernate 6 移除）
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    /**
+     * 單一實體類別的筆數與載入時間
+     */
+    private static final class Counter {
+        private final AtomicLong value;
+        private final long loadedAt;
+
+        Counter(long value, long loadedAt) {
+            this.value = new AtomicLong(value);
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long now, long refreshNanos) {
+            return now - loadedAt >= refreshNanos;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.dao.impl;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * ID 配號表初始化
+ *
+ * 功能說明：
+ * Order、OrderItem、Cart、CartItem 改用 id_generators 資料表配號（pooled-lo）後，
+ * 配號起點必須大於資料表中既有的最大 ID（原本由 AUTO_INCREMENT 產生），否則會產生重複的主鍵
+ *
+ * 啟動時將每個配號區段的 next_val 設為 MAX(id) + 1（已經比較大則保持不變）
+ * SQL 等價語句：
+ * INSERT INTO id_generators (sequence_name, next_val)
+ * SELECT 'orders', COALESCE(MAX(order_id), 0) + 1 FROM orders
+ * ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))
+ */
+@Component
+public class IdGeneratorInitializer implements InitializingBean {
+
+    //配號區段名稱、資料表、主鍵欄位（與實體類別上 @GenericGenerator 的 segment_value 相同）
+    private static final String[][] SEGMENTS = {
+        {"orders", "orders", "order_id"},
+        {"order_items", "order_items", "order_item_id"},
+        {"carts", "carts", "cart_id"},
+        {"cart_items", "cart_items", "cart_item_id"}
+    };
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                for (String[] segment : SEGMENTS) {
+                    session.createNativeQuery(
+                            "INSERT INTO id_generators (sequence_name, next_val) " +
+                            "SELECT :segment, COALESCE(MAX(" + segment[2] + "), 0) + 1 FROM " + segment[1] + " " +
+                            "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))")
+                        .setParameter("segment", segment[0])
+                        // 只影響配號表，不需要清除二級快取
+                        .addSynchronizedQuerySpace("id_generators")
+                        .executeUpdate();
+                }
+                tx.commit();
+                System.out.println("✓ ID 配號表已初始化");
+            } catch (RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+}
@@ -5,11 +5,15 @@ import com.example.demo.dao.OrderDAO;  // OrderDAO 介面
 import com.example.demo.model.Customer;  // 客戶實體
 import com.example.demo.model.Order;  // 訂單實體
 import com.example.demo.model.OrderStatus;  // 訂單狀態枚舉
+import org.hibernate.LockMode;  // Hibernate 鎖定模式
 import org.hibernate.Session;  // Hibernate Session（類似 JDBC 的 Connection）
 import org.hibernate.SessionFactory;  // Hibernate SessionFactory（產生 Session 的工廠）
+import org.hibernate.jpa.QueryHints;  // Hibernate 查詢提示常數
 import org.hibernate.query.Query;  // Hibernate Query 物件
 import org.springframework.beans.factory.annotation.Autowired;  // Spring 自動注入註解
 import org.springframework.stereotype.Repository;  // Spring Repository 註解
+import java.util.ArrayList;  // ArrayList 類別
+import java.util.Collection;  // Collection 介面
 import java.util.List;  // List 介面
 
 /**
@@ -38,6 +42,16 @@ public class OrderDAOImpl implements OrderDAO {  // 實作 OrderDAO 介面
         return sessionFactory.getCurrentSession();
     }
     
+    /**
+     * 一併載入客戶、訂單項目與項目產品的查詢開頭
+     * SELECT DISTINCT：JOIN FETCH 集合時每個訂單項目會產生一列，DISTINCT 讓每個訂單只出現一次
+     */
+    private static final String FETCH_DETAILS_HQL =
+        "SELECT DISTINCT o FROM Order o " +
+        "JOIN FETCH o.customer " +
+        "LEFT JOIN FETCH o.orderItems i " +
+        "LEFT JOIN FETCH i.product ";
+    
     // ========== 實作 DAO 方法 ==========
     
     /**
@@ -56,6 +70,13 @@ public class OrderDAOImpl implements OrderDAO {  // 實作 OrderDAO 介面
         return getCurrentSession().get(Order.class, id);
     }
     
+    @Override
+    public Order findByIdForUpdate(Long id) {
+        // LockMode.PESSIMISTIC_WRITE 產生 SELECT ... FOR UPDATE
+        // 其他交易已鎖定時等待它提交，再讀取提交後的狀態
+        return getCurrentSession().get(Order.class, id, LockMode.PESSIMISTIC_WRITE);
+    }
+    
     /**
      * 根據訂單編號查詢
      * 實作 OrderDAO 介面的 findByOrderNumber 方法
@@ -99,6 +120,23 @@ public class OrderDAOImpl implements OrderDAO {  // 實作 OrderDAO 介面
             .list();
     }
     
+    /**
+     * 查詢最近的訂單
+     * 實作 OrderDAO 介面的 findRecent 方法
+     * @param limit 要取得的訂單數量
+     * @return 最近的訂單 List
+     */
+    @Override
+    public List<Order> findRecent(int limit) {
+        // JOIN FETCH o.customer：同一條 SQL 一併載入客戶，避免逐筆查詢客戶（N+1）
+        // ORDER BY o.createdDate DESC：最新的在前，搭配 created_date 索引
+        // setMaxResults(limit)：產生 LIMIT ?，資料庫只讀取 limit 筆
+        return getCurrentSession()
+            .createQuery("SELECT o FROM Order o JOIN FETCH o.customer ORDER BY o.createdDate DESC", Order.class)
+            .setMaxResults(limit)
+            .list();
+    }
+    
     /**
      * 根據客戶查詢訂單
      * 實作 OrderDAO 介面的 findByCustomer 方法
@@ -121,6 +159,55 @@ public class OrderDAOImpl implements OrderDAO {  // 實作 OrderDAO 介面
         return query.list();
     }
     
+    /**
+     * 查詢所有訂單（含客戶與訂單項目）
+     * 實作 OrderDAO 介面的 findAllWithDetails 方法
+     * @return 所有訂單的 List
+     */
+    @Override
+    public List<Order> findAllWithDetails() {
+        return createFetchDetailsQuery("ORDER BY o.createdDate DESC")
+            .list();
+    }
+    
+    /**
+     * 根據客戶查詢訂單（含客戶與訂單項目）
+     * 實作 OrderDAO 介面的 findByCustomerWithDetails 方法
+     * @param customer 客戶物件
+     * @return 該客戶的所有訂單 List
+     */
+    @Override
+    public List<Order> findByCustomerWithDetails(Customer customer) {
+        return createFetchDetailsQuery("WHERE o.customer = :customer ORDER BY o.createdDate DESC")
+            .setParameter("customer", customer)
+            .list();
+    }
+    
+    /**
+     * 根據訂單狀態查詢（含客戶與訂單項目）
+     * 實作 OrderDAO 介面的 findByStatusWithDetails 方法
+     * @param status 訂單狀態枚舉
+     * @return 符合該狀態的所有訂單 List
+     */
+    @Override
+    public List<Order> findByStatusWithDetails(OrderStatus status) {
+        return createFetchDetailsQuery("WHERE o.orderStatus = :status ORDER BY o.createdDate DESC")
+            .setParameter("status", status)
+            .list();
+    }
+    
+    /**
+     * 建立一併載入客戶與訂單項目的查詢
+     * @param condition 查詢條件與排序（接在 FETCH_DETAILS_HQL 之後）
+     * @return Hibernate Query 物件
+     */
+    private Query<Order> createFetchDetailsQuery(String condition) {
+        return getCurrentSession()
+            .createQuery(FETCH_DETAILS_HQL + condition, Order.class)
+            // DISTINCT 只用於在 Java 端去除重複的訂單，不需要傳給資料庫
+            .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
+    }
+    
     /**
      * 根據訂單狀態查詢
      * 實作 OrderDAO 介面的 findByStatus 方法
@@ -143,6 +230,64 @@ public class OrderDAOImpl implements OrderDAO {  // 實作 OrderDAO 介面
         return query.list();
     }
     
+    /**
+     * 以前綴搜尋訂單
+     * 實作 OrderDAO 介面的 searchByPrefix 方法
+     * 
+     * 實作說明：
+     * 1. 以原生 SQL 的 UNION 分別查詢三個欄位，每段都能使用各自的索引
+     *    （OR 條件跨越 orders 與 customers 兩個資料表時，MySQL 無法使用索引）
+     * 2. LIKE '關鍵字%' 是前綴比對，可使用索引；'%關鍵字%' 則會掃描整個資料表
+     * 3. 每段各自排序並限制 limit 筆（LIMIT 在括號內），常見的前綴（例如 "ORD"）不會讓每段都排序所有符合的訂單；
+     *    合併後再排序一次取前 limit 筆
+     * 4. 先取得符合的訂單 ID，再以 JOIN FETCH 一次載入訂單與客戶
+     * 
+     * @param prefix 搜尋關鍵字（前綴）
+     * @param limit 最多回傳幾筆
+     * @return 符合條件的訂單 List
+     */
+    @Override
+    public List<Order> searchByPrefix(String prefix, int limit) {
+        // 跳脫 LIKE 的特殊字元（\ % _），避免使用者輸入被當成萬用字元
+        String pattern = prefix.replace("\\", "\\\\")
+                               .replace("%", "\\%")
+                               .replace("_", "\\_") + "%";
+        
+        // 步驟1：以 UNION 查詢符合的訂單 ID（依建立時間由新到舊，最多 limit 筆）
+        // MySQL 預設的 utf8mb4 定序不區分大小寫，不需要 LOWER()（LOWER() 會讓索引失效）
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = getCurrentSession()
+            .createNativeQuery(
+                "(SELECT order_id, created_date FROM orders WHERE order_number LIKE :pattern " +
+                "ORDER BY created_date DESC LIMIT :limit) " +
+                "UNION " +
+                "(SELECT order_id, created_date FROM orders WHERE recipient_name LIKE :pattern " +
+                "ORDER BY created_date DESC LIMIT :limit) " +
+                "UNION " +
+                "(SELECT o.order_id, o.created_date FROM orders o " +
+                "JOIN customers c ON c.cust_num = o.cust_num WHERE c.cust_name LIKE :pattern " +
+                "ORDER BY o.created_date DESC LIMIT :limit) " +
+                "ORDER BY created_date DESC")
+            .setParameter("pattern", pattern)
+            .setParameter("limit", limit)
+            .setMaxResults(limit)
+            .list();
+        
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> orderIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            orderIds.add(((Number) row[0]).longValue());
+        }
+        
+        // 步驟2：依 ID 載入訂單，JOIN FETCH 一併載入客戶與訂單項目（避免逐筆查詢的 N+1 問題）
+        return createFetchDetailsQuery("WHERE o.orderId IN (:orderIds) ORDER BY o.createdDate DESC")
+            .setParameterList("orderIds", orderIds)
+            .list();
+    }
+    
     /**
      * 儲存或更新訂單
      * 實作 OrderDAO 介面的 save 方法
@@ -176,4 +321,91 @@ public class OrderDAOImpl implements OrderDAO {  // 實作 OrderDAO 介面
         }
         // 如果訂單不存在（order == null），不做任何事
     }
-}
\ No newline at end of file
+    
+    /**
+     * 取得尚未寫入資料庫庫存的限時搶購訂單 ID
+     * 
+     * SQL 等價語句：
+     * SELECT order_id FROM orders WHERE stock_pending = TRUE ORDER BY order_id LIMIT ?
+     * 
+     * @param limit 最多回傳幾筆
+     * @return 訂單 ID List
+     */
+    @Override
+    public List<Long> findStockPendingIds(int limit) {
+        @SuppressWarnings("unchecked")
+        List<Number> rows = getCurrentSession()
+            .createNativeQuery("SELECT order_id FROM orders WHERE stock_pending = TRUE ORDER BY order_id")
+            .setMaxResults(limit)
+            .list();
+        return toLongs(rows);
+    }
+    
+    /**
+     * 鎖定尚未寫入資料庫庫存的訂單
+     * 
+     * 實作說明：
+     * 以 FOR UPDATE 鎖定訂單資料列，直到交易結束；
+     * 同時取消訂單（clearStockPending）或另一個對帳交易會等待，不會重複處理同一筆訂單
+     * 
+     * @param orderIds 訂單 ID
+     * @return 仍未寫入的訂單 ID List
+     */
+    @Override
+    public List<Long> lockStockPending(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        @SuppressWarnings("unchecked")
+        List<Number> rows = getCurrentSession()
+            .createNativeQuery("SELECT order_id FROM orders " +
+                               "WHERE order_id IN (:orderIds) AND stock_pending = TRUE FOR UPDATE")
+            .setParameterList("orderIds", orderIds)
+            .list();
+        return toLongs(rows);
+    }
+    
+    /**
+     * 清除「尚未寫入資料庫庫存」標記
+     * 
+     * @param orderIds 訂單 ID
+     * @return 實際清除的筆數
+     */
+    @Override
+    public int clearStockPending(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        return getCurrentSession()
+            .createNativeQuery("UPDATE orders SET stock_pending = FALSE " +
+                               "WHERE order_id IN (:orderIds) AND stock_pending = TRUE")
+            .setParameterList("orderIds", orderIds)
+            // 只影響 orders 資料表，不需要清除其他二級快取區域
+            .addSynchronizedQuerySpace("orders")
+            .executeUpdate();
+    }
+    
+    // 將原生查詢的數字欄位轉成 Long
+    private static List<Long> toLongs(List<Number> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Number row : rows) {
+            ids.add(row.longValue());
+        }
+        return ids;
+    }
+    
+    /**
+     * 取得訂單總筆數
+     * 
+     * SQL 等價語句：
+     * SELECT COUNT(*) FROM orders
+     * 
+     * @return 訂單總筆數
+     */
+    @Override
+    public long count() {
+        return getCurrentSession()
+            .createQuery("SELECT COUNT(o) FROM Order o", Long.class)
+            .uniqueResult();
+    }
+}
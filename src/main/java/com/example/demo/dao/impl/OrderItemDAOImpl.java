@@ -2,12 +2,17 @@ package com.example.demo.dao.impl;
 
 import com.example.demo.dao.OrderItemDAO;
 import com.example.demo.model.OrderItem;
+import com.example.demo.model.OrderStatus;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Repository
 public class OrderItemDAOImpl implements OrderItemDAO {
@@ -51,4 +56,39 @@ public class OrderItemDAOImpl implements OrderItemDAO {
             .setParameter("orderId", orderId);
         return query.list();
     }
-}
\ No newline at end of file
+    
+    @Override
+    public Map<Long, Long> sumQuantityByProduct() {
+        List<Object[]> rows = getCurrentSession()
+            .createQuery("SELECT i.product.prodNum, SUM(i.quantity) FROM OrderItem i " +
+                         "WHERE i.order.orderStatus <> :cancelled " +
+                         "GROUP BY i.product.prodNum", Object[].class)
+            .setParameter("cancelled", OrderStatus.CANCELLED)
+            .list();
+        Map<Long, Long> sales = new HashMap<>();
+        for (Object[] row : rows) {
+            sales.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return sales;
+    }
+
+    @Override
+    public Map<Long, Integer> sumPendingQuantityByProduct(Collection<Long> orderIds) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        if (orderIds.isEmpty()) {
+            return quantities;
+        }
+        List<Object[]> rows = getCurrentSession()
+            .createQuery("SELECT i.product.prodNum, SUM(i.quantity) FROM OrderItem i " +
+                         "WHERE i.order.orderId IN (:orderIds) " +
+                         // null：加入此欄位前建立的項目，沿用訂單的標記
+                         "AND (i.stockPending = TRUE OR i.stockPending IS NULL) " +
+                         "GROUP BY i.product.prodNum", Object[].class)
+            .setParameterList("orderIds", orderIds)
+            .list();
+        for (Object[] row : rows) {
+            quantities.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return quantities;
+    }
+}
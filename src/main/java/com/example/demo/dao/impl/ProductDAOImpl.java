@@ -2,13 +2,23 @@ package com.example.demo.dao.impl;
 
 import com.example.demo.dao.ProductDAO;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductTypeFacet;
+import com.example.demo.util.TransactionCallbacks;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * 產品 DAO 實作類別
@@ -199,4 +209,173 @@ public class ProductDAOImpl implements ProductDAO {
         
         return types;
     }
-}
\ No newline at end of file
+
+    /**
+     * 取得所有產品類型與各類型的產品數量
+     * 
+     * 實作說明：
+     * 1. 使用 GROUP BY 在資料庫計算各類型的數量
+     * 2. 使用 SELECT new 直接建立 ProductTypeFacet 物件
+     * 
+     * @return 產品類型統計的 List
+     */
+    @Override
+    public List<ProductTypeFacet> findTypeFacets() {
+        String hql = "SELECT new com.example.demo.model.ProductTypeFacet(p.prodType, COUNT(p)) " +
+                     "FROM Product p " +
+                     "WHERE p.prodType IS NOT NULL " +
+                     "GROUP BY p.prodType " +
+                     "ORDER BY p.prodType";
+        
+        return getCurrentSession().createQuery(hql, ProductTypeFacet.class).list();
+    }
+
+    /**
+     * 根據多個 ID 查詢產品
+     * 
+     * 實作說明：
+     * 使用 Hibernate 的 multiLoad，先從 Session 與二級快取取得，
+     * 剩下的再以 WHERE prod_num IN (...) 一次載入，並依傳入的順序回傳
+     * 
+     * @param ids 產品 ID List
+     * @return 產品 List（不存在的 ID 會被略過）
+     */
+    @Override
+    public List<Product> findByIds(List<Long> ids) {
+        return getCurrentSession()
+                .byMultipleIds(Product.class)
+                .enableOrderedReturn(true)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+    
+    // ===== 庫存 =====
+    // 以 JDBC 直接執行：HQL 或原生 SQL 的 UPDATE 會讓 Hibernate 清除整個 product 二級快取區域，
+    // 每次結帳都清除會讓產品頁全部重新查詢資料庫。Product 的 stock 欄位設為 updatable = false，
+    // 快取中的值只供顯示，扣庫存一律以資料庫的條件式 UPDATE 為準
+
+    @Override
+    public Integer findStock(Long id) {
+        return getCurrentSession().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT prod_stock FROM products WHERE prod_num = ?")) {
+                statement.setLong(1, id);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new RuntimeException("找不到產品，ID: " + id);
+                    }
+                    int stock = resultSet.getInt(1);
+                    return resultSet.wasNull() ? null : stock;
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean decreaseStock(Long id, int quantity) {
+        return getCurrentSession().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE products SET prod_stock = prod_stock - ? " +
+                    "WHERE prod_num = ? AND (prod_stock IS NULL OR prod_stock >= ?) " +
+                    "AND (prod_flash_sale IS NULL OR prod_flash_sale = FALSE)")) {
+                statement.setInt(1, quantity);
+                statement.setLong(2, id);
+                statement.setInt(3, quantity);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    @Override
+    public void increaseStock(Long id, int quantity) {
+        getCurrentSession().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE products SET prod_stock = prod_stock + ? " +
+                    "WHERE prod_num = ? AND prod_stock IS NOT NULL")) {
+                statement.setInt(1, quantity);
+                statement.setLong(2, id);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void updateStock(Long id, Integer stock) {
+        getCurrentSession().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE products SET prod_stock = ? WHERE prod_num = ?")) {
+                if (stock == null) {
+                    statement.setNull(1, Types.INTEGER);
+                } else {
+                    statement.setInt(1, stock);
+                }
+                statement.setLong(2, id);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public List<Long> findFlashSaleIds() {
+        return getCurrentSession().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT prod_num FROM products WHERE prod_flash_sale = TRUE");
+                 ResultSet resultSet = statement.executeQuery()) {
+                List<Long> ids = new ArrayList<>();
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
+    public void updateFlashSale(Long id, boolean flashSale) {
+        getCurrentSession().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE products SET prod_flash_sale = ? WHERE prod_num = ?")) {
+                statement.setBoolean(1, flashSale);
+                statement.setLong(2, id);
+                statement.executeUpdate();
+            }
+        });
+    }
+    
+    @Override
+    public boolean updateImageVariants(Long id, String imageUrl, String variants, Date updatedDate) {
+        boolean updated = getCurrentSession().doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE products SET prod_image_variants = ?, updated_date = ? " +
+                    "WHERE prod_num = ? AND prod_image = ?")) {
+                statement.setString(1, variants);
+                statement.setTimestamp(2, new Timestamp(updatedDate.getTime()));
+                statement.setLong(3, id);
+                statement.setString(4, imageUrl);
+                return statement.executeUpdate() == 1;
+            }
+        });
+        if (updated) {
+            // 只清除這一筆（不是整個 product 區域），提交後才清除，避免其他交易在提交前又放回舊值
+            TransactionCallbacks.afterCommit(() -> sessionFactory.getCache().evictEntityData(Product.class, id));
+        }
+        return updated;
+    }
+    
+    /**
+     * 取得產品總筆數
+     * 
+     * SQL 等價語句：
+     * SELECT COUNT(*) FROM products
+     * 
+     * @return 產品總筆數
+     */
+    @Override
+    public long count() {
+        return getCurrentSession()
+                .createQuery("SELECT COUNT(p) FROM Product p", Long.class)
+                .uniqueResult();
+    }
+}
@@ -0,0 +1,481 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 產品目錄快照（不可修改）
+ *
+ * 功能說明：
+ * 1. 以陣列保存所有產品的副本（依產品編號排序），與 Hibernate Session 無關
+ * 2. 預先計算各排序方式的索引陣列：編號、價格、名稱（遞增）；遞減時反向讀取同一個陣列
+ * 3. 每種產品類型也預先計算同樣的索引陣列，類型篩選不需要掃過所有產品
+ * 4. 取得列表只建立陣列的「檢視」，分頁時以二分搜尋找到游標位置，只讀取一頁的資料
+ *
+ * 排序規則：排序值相同時依產品編號，遞減時產品編號也遞減
+ *
+ * 產品異動時以 with() / without() 建立新的快照，舊的快照不會被修改（copy-on-write），
+ * 所以多個請求可以同時讀取，不需要加鎖；新快照複製既有的索引陣列，只以二分搜尋移除、插入異動的產品，
+ * 不重新排序（每次異動 O(n) 陣列複製）
+ *
+ * 每個快照都有版本（載入時間 + 異動次數）與最後修改時間，產品頁的 ETag / Last-Modified 由此計算：
+ * 重新啟動後載入時間不同，不會與啟動前的版本相同
+ *
+ * 注意：快照中的 Product 只能讀取，不可修改或交給 Hibernate 儲存
+ */
+public final class CatalogSnapshot {
+
+    //排序欄位
+    private static final int BY_NUM = 0;
+    private static final int BY_PRICE = 1;
+    private static final int BY_NAME = 2;
+
+    private static final Comparator<Product> NUM_ORDER =
+            Comparator.comparing(Product::getProdNum);
+
+    //依排序欄位（BY_NUM, BY_PRICE, BY_NAME）排列；名稱不區分大小寫，與 MySQL 的 utf8mb4 定序一致
+    private static final List<Comparator<Product>> ORDERS = List.of(
+        NUM_ORDER,
+        Comparator.comparing(Product::getProdPrice).thenComparing(NUM_ORDER),
+        Comparator.comparing(Product::getProdName, String.CASE_INSENSITIVE_ORDER).thenComparing(NUM_ORDER)
+    );
+
+    //所有產品（依產品編號遞增）
+    private final Product[] products;
+
+    //orders[排序欄位] = 依該欄位遞增排列的產品位置
+    private final int[][] orders;
+
+    //產品類型 → 該類型的 orders
+    private final Map<String, int[][]> typeOrders;
+
+    //從資料庫載入的時間（毫秒），with() / without() 建立的快照沿用
+    private final long loadedAt;
+
+    //載入後的異動次數
+    private final long version;
+
+    //目錄最後修改時間（毫秒）
+    private final long lastModified;
+
+    private CatalogSnapshot(Product[] products, int[][] orders, Map<String, int[][]> typeOrders,
+                            long loadedAt, long version, long lastModified) {
+        this.products = products;
+        this.orders = orders;
+        this.typeOrders = typeOrders;
+        this.loadedAt = loadedAt;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    //排序所有產品，建立各排序方式與各類型的索引陣列（只在從資料庫載入時執行）
+    private static CatalogSnapshot build(Product[] products, long loadedAt) {
+        int[][] orders = new int[ORDERS.size()][];
+        for (int field = 0; field < ORDERS.size(); field++) {
+            orders[field] = sortedPositions(products, ORDERS.get(field));
+        }
+
+        // 依類型分組：依序掃過整體的索引陣列，分組後仍保持排序
+        Map<String, int[][]> byType = new HashMap<>();
+        Map<String, Integer> typeCounts = new HashMap<>();
+        for (Product product : products) {
+            if (product.getProdType() != null) {
+                typeCounts.merge(product.getProdType(), 1, Integer::sum);
+            }
+        }
+        for (int field = 0; field < ORDERS.size(); field++) {
+            Map<String, Integer> filled = new HashMap<>();
+            for (int position : orders[field]) {
+                String type = products[position].getProdType();
+                if (type == null) {
+                    continue;
+                }
+                int[][] typeOrder = byType.computeIfAbsent(type, key -> new int[ORDERS.size()][]);
+                if (typeOrder[field] == null) {
+                    typeOrder[field] = new int[typeCounts.get(type)];
+                }
+                int index = filled.merge(type, 1, Integer::sum) - 1;
+                typeOrder[field][index] = position;
+            }
+        }
+        return new CatalogSnapshot(products, orders, byType, loadedAt, 0, loadedAt);
+    }
+
+    /**
+     * 由產品清單建立快照（會複製每個產品，不保留 Hibernate 管理的物件）
+     *
+     * @param source 產品清單
+     * @return 新的快照
+     */
+    public static CatalogSnapshot of(Collection<Product> source) {
+        Product[] copies = new Product[source.size()];
+        int i = 0;
+        for (Product product : source) {
+            copies[i++] = new Product(product);
+        }
+        Arrays.sort(copies, NUM_ORDER);
+        // 刪除不會留下修改時間，重新載入時一律視為剛修改過
+        return build(copies, System.currentTimeMillis());
+    }
+
+    /**
+     * 建立加入（或更新）一項產品後的新快照，原快照不變
+     *
+     * @param product 新增或修改後的產品
+     * @return 新的快照
+     */
+    public CatalogSnapshot with(Product product) {
+        Product copy = new Product(product);
+        int index = Arrays.binarySearch(products, copy, NUM_ORDER);
+        if (index >= 0) {
+            // 修改：位置不變，只在索引陣列中移除舊的排序位置、插入新的
+            Product[] updated = products.clone();
+            updated[index] = copy;
+            return updated(updated, index, products[index].getProdType(), 0, 0, index, copy.getProdType());
+        }
+        // 新增：插入點之後的產品位置都加 1
+        int insertAt = -(index + 1);
+        Product[] updated = new Product[products.length + 1];
+        System.arraycopy(products, 0, updated, 0, insertAt);
+        updated[insertAt] = copy;
+        System.arraycopy(products, insertAt, updated, insertAt + 1, products.length - insertAt);
+        return updated(updated, -1, null, insertAt, 1, insertAt, copy.getProdType());
+    }
+
+    /**
+     * 建立移除一項產品後的新快照，原快照不變
+     *
+     * @param prodNum 產品編號
+     * @return 新的快照（產品不存在時回傳原快照）
+     */
+    public CatalogSnapshot without(Long prodNum) {
+        int index = indexOf(prodNum);
+        if (index < 0) {
+            return this;
+        }
+        Product[] updated = new Product[products.length - 1];
+        System.arraycopy(products, 0, updated, 0, index);
+        System.arraycopy(products, index + 1, updated, index, products.length - index - 1);
+        // 刪除：之後的產品位置都減 1
+        return updated(updated, index, products[index].getProdType(), index + 1, -1, -1, null);
+    }
+
+    /**
+     * 以目前的索引陣列建立異動後的快照（複製陣列，不重新排序）
+     *
+     * @param updated 異動後的產品陣列
+     * @param removed 要移除的產品位置（異動前的位置，-1 表示沒有）
+     * @param removedType 移除的產品類型
+     * @param shiftFrom 異動前位置 >= shiftFrom 的產品位置要加上 shift
+     * @param shift 位置位移（新增 1、刪除 -1、修改 0）
+     * @param inserted 要插入的產品位置（異動後的位置，-1 表示沒有）
+     * @param insertedType 插入的產品類型
+     */
+    private CatalogSnapshot updated(Product[] updated, int removed, String removedType,
+                                    int shiftFrom, int shift, int inserted, String insertedType) {
+        int[][] updatedOrders = new int[ORDERS.size()][];
+        for (int field = 0; field < ORDERS.size(); field++) {
+            updatedOrders[field] = update(orders[field], updated, ORDERS.get(field),
+                    removed, shiftFrom, shift, inserted);
+        }
+        Map<String, int[][]> updatedTypes = new HashMap<>();
+        for (Map.Entry<String, int[][]> entry : typeOrders.entrySet()) {
+            String type = entry.getKey();
+            int typeRemoved = type.equals(removedType) ? removed : -1;
+            int typeInserted = type.equals(insertedType) ? inserted : -1;
+            if (typeRemoved < 0 && typeInserted < 0 && shift == 0) {
+                // 修改產品時其他類型不受影響，直接沿用
+                updatedTypes.put(type, entry.getValue());
+                continue;
+            }
+            int[][] typeOrder = new int[ORDERS.size()][];
+            for (int field = 0; field < ORDERS.size(); field++) {
+                typeOrder[field] = update(entry.getValue()[field], updated, ORDERS.get(field),
+                        typeRemoved, shiftFrom, shift, typeInserted);
+            }
+            if (typeOrder[BY_NUM].length > 0) {
+                updatedTypes.put(type, typeOrder);
+            }
+        }
+        if (insertedType != null && !typeOrders.containsKey(insertedType)) {
+            int[][] typeOrder = new int[ORDERS.size()][];
+            for (int field = 0; field < ORDERS.size(); field++) {
+                typeOrder[field] = new int[] {inserted};
+            }
+            updatedTypes.put(insertedType, typeOrder);
+        }
+        return new CatalogSnapshot(updated, updatedOrders, updatedTypes, loadedAt, version + 1, modifiedNow());
+    }
+
+    /**
+     * 取得版本標記（載入時間與異動次數），目錄有任何異動就會不同
+     *
+     * @return 例如 18b2f3c4d5e-12
+     */
+    public String getVersionTag() {
+        return Long.toHexString(loadedAt) + "-" + version;
+    }
+
+    /**
+     * 取得從資料庫載入的時間（毫秒）
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * 取得目錄最後修改時間（毫秒）
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    //時鐘往回調整時也不會比目前的最後修改時間早
+    private long modifiedNow() {
+        return Math.max(lastModified, System.currentTimeMillis());
+    }
+
+    /**
+     * 取得產品數
+     */
+    public int size() {
+        return products.length;
+    }
+
+    /**
+     * 依產品編號取得產品
+     *
+     * @param prodNum 產品編號
+     * @return 產品，不存在時返回 null
+     */
+    public Product get(Long prodNum) {
+        int index = indexOf(prodNum);
+        return index >= 0 ? products[index] : null;
+    }
+
+    /**
+     * 取得排序後的產品列表（唯讀檢視，不會複製陣列）
+     *
+     * @param type 產品類型（null 或空字串表示全部）
+     * @param sort 排序方式（price_asc, price_desc, name_asc, name_desc，其他值依產品編號）
+     * @return 產品 List
+     */
+    public List<Product> list(String type, String sort) {
+        int[] order = order(type, sort);
+        return new OrderedView(order, isDescending(sort));
+    }
+
+    /**
+     * 取得游標之後的一頁產品
+     * 以二分搜尋找到游標位置，只讀取 limit 筆
+     *
+     * @param type 產品類型（可為 null）
+     * @param sort 排序方式（可為 null）
+     * @param after 上一頁的游標（null 表示第一頁；排序值格式不符時也視為第一頁）
+     * @param limit 最多取得幾筆
+     * @return 本頁的產品 List
+     */
+    public List<Product> pageAfter(String type, String sort, ProductCursor after, int limit) {
+        return page(list(type, sort), sort, after, limit);
+    }
+
+    /**
+     * 取得指定的產品並依排序方式排列（關鍵字搜尋使用：排序整個搜尋結果，不查詢資料庫）
+     *
+     * @param prodNums 產品編號（快照中不存在的略過）
+     * @param sort 排序方式（price_asc, price_desc, name_asc, name_desc，其他值依產品編號）
+     * @return 排序後的唯讀產品 List
+     */
+    public List<Product> sorted(Collection<Long> prodNums, String sort) {
+        List<Product> result = new ArrayList<>(prodNums.size());
+        for (Long prodNum : prodNums) {
+            Product product = get(prodNum);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        result.sort(comparator(sort));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 取得指定的產品依排序方式排列後，游標之後的一頁
+     *
+     * @param prodNums 產品編號（快照中不存在的略過）
+     * @param sort 排序方式（可為 null）
+     * @param after 上一頁的游標（null 表示第一頁）
+     * @param limit 最多取得幾筆
+     * @return 本頁的產品 List
+     */
+    public List<Product> sortedPageAfter(Collection<Long> prodNums, String sort, ProductCursor after, int limit) {
+        return page(sorted(prodNums, sort), sort, after, limit);
+    }
+
+    // ========== 輔助方法 ==========
+
+    //在已排序的列表中，以二分搜尋找到游標之後的位置，取 limit 筆
+    private static List<Product> page(List<Product> view, String sort, ProductCursor after, int limit) {
+        int from = 0;
+        Product marker = after != null ? cursorMarker(after, sort) : null;
+        if (marker != null) {
+            Comparator<Product> order = comparator(sort);
+            // 找出第一個排在游標之後的位置
+            int low = 0;
+            int high = view.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(view.get(mid), marker) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        return view.subList(from, Math.min(from + limit, view.size()));
+    }
+
+    //排序方式對應的比較器（遞減時反向）
+    private static Comparator<Product> comparator(String sort) {
+        Comparator<Product> order = ORDERS.get(field(sort));
+        return isDescending(sort) ? order.reversed() : order;
+    }
+
+    //依產品編號二分搜尋
+    private int indexOf(Long prodNum) {
+        int low = 0;
+        int high = products.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = products[mid].getProdNum().compareTo(prodNum);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    //取得排序與類型對應的索引陣列
+    private int[] order(String type, String sort) {
+        int field = field(sort);
+        if (type == null || type.trim().isEmpty()) {
+            return orders[field];
+        }
+        int[][] typeOrder = typeOrders.get(type);
+        return typeOrder != null ? typeOrder[field] : new int[0];
+    }
+
+    //將游標轉成可以比較的產品（只有排序欄位與產品編號）
+    private static Product cursorMarker(ProductCursor after, String sort) {
+        Product marker = new Product();
+        marker.setProdNum(after.getProdNum());
+        int field = field(sort);
+        if (field == BY_NUM) {
+            return marker;
+        }
+        if (after.getSortValue() == null) {
+            return null;
+        }
+        if (field == BY_PRICE) {
+            try {
+                marker.setProdPrice(new BigDecimal(after.getSortValue()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            marker.setProdName(after.getSortValue());
+        }
+        return marker;
+    }
+
+    private static int field(String sort) {
+        if ("price_asc".equals(sort) || "price_desc".equals(sort)) {
+            return BY_PRICE;
+        }
+        if ("name_asc".equals(sort) || "name_desc".equals(sort)) {
+            return BY_NAME;
+        }
+        return BY_NUM;
+    }
+
+    private static boolean isDescending(String sort) {
+        return field(sort) != BY_NUM && sort.endsWith("_desc");
+    }
+
+    //依比較器排列產品位置
+    private static int[] sortedPositions(Product[] products, Comparator<Product> comparator) {
+        Integer[] positions = new Integer[products.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> comparator.compare(products[a], products[b]));
+        int[] result = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = positions[i];
+        }
+        return result;
+    }
+
+    //複製索引陣列：略過位置 removed，位置 >= shiftFrom 的加上 shift，
+    //再以二分搜尋將位置 inserted 插入排序後的位置（O(n) 複製，不重新排序）
+    private static int[] update(int[] order, Product[] products, Comparator<Product> comparator,
+                                int removed, int shiftFrom, int shift, int inserted) {
+        int[] result = new int[order.length - (removed >= 0 ? 1 : 0) + (inserted >= 0 ? 1 : 0)];
+        int length = 0;
+        for (int position : order) {
+            if (position != removed) {
+                result[length++] = position >= shiftFrom ? position + shift : position;
+            }
+        }
+        if (inserted >= 0) {
+            Product product = products[inserted];
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(products[result[mid]], product) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(result, low, result, low + 1, length - low);
+            result[low] = inserted;
+        }
+        return result;
+    }
+
+    //依索引陣列讀取產品的唯讀 List（遞減時反向讀取）
+    private final class OrderedView extends AbstractList<Product> implements RandomAccess {
+        private final int[] order;
+        private final boolean descending;
+
+        private OrderedView(int[] order, boolean descending) {
+            this.order = order;
+            this.descending = descending;
+        }
+
+        @Override
+        public Product get(int index) {
+            return products[order[descending ? order.length - 1 - index : index]];
+        }
+
+        @Override
+        public int size() {
+            return order.length;
+        }
+    }
+}
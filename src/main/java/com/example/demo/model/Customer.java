@@ -1,13 +1,19 @@
 package com.example.demo.model;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 客戶實體類別
  * 用於顧客登入和購物
  */
 @Entity
-@Table(name = "customers")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")  // 二級快取（讀多寫少）
+@Table(name = "customers", indexes = {
+        // 客戶姓名索引：管理員以客戶姓名前綴搜尋訂單時使用
+        @Index(name = "idx_customers_cust_name", columnList = "cust_name")
+})
 public class Customer {
 
     @Id
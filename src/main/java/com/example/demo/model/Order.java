@@ -1,6 +1,8 @@
 package com.example.demo.model;  // 定義此類別所在的套件（package）
 
 import javax.persistence.*;  // 引入 JPA 的所有註解，用於 ORM 對應
+import org.hibernate.annotations.GenericGenerator;  // Hibernate 自訂 ID 產生器
+import org.hibernate.annotations.Parameter;  // ID 產生器參數
 import java.math.BigDecimal;  // 引入 BigDecimal 類別，用於精確的金額計算
 import java.util.ArrayList;  // 引入 ArrayList，用於存放訂單項目清單
 import java.util.Date;  // 引入 Date 類別，用於記錄日期時間
@@ -12,12 +14,27 @@ import java.util.List;  // 引入 List 介面
  * 對應資料庫中的 orders 資料表
  */
 @Entity  // 標示這是一個 JPA 實體類別，會對應到資料庫的資料表
-@Table(name = "orders")  // 指定對應的資料表名稱為 "orders"
+@Table(name = "orders", indexes = {  // 指定對應的資料表名稱為 "orders"
+    // created_date 索引：最近訂單查詢（ORDER BY created_date DESC LIMIT ?）只需讀取 limit 筆
+    @Index(name = "idx_orders_created_date", columnList = "created_date"),
+    // recipient_name 索引：管理員以收件人姓名前綴搜尋訂單
+    @Index(name = "idx_orders_recipient_name", columnList = "recipient_name"),
+    // stock_pending 索引：啟動時找出尚未寫入資料庫庫存的限時搶購訂單
+    @Index(name = "idx_orders_stock_pending", columnList = "stock_pending")
+})
 public class Order {  // 定義 Order 類別
 
     // ========== 主鍵欄位 ==========
     @Id  // 標示此欄位為主鍵（Primary Key）
-    @GeneratedValue(strategy = GenerationType.IDENTITY)  // 主鍵自動遞增，使用資料庫的 AUTO_INCREMENT
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id_gen")  
+    // 使用 id_generators 資料表配號（pooled-lo：一次取得 50 個 ID，在記憶體中分配）
+    // 不使用 IDENTITY（AUTO_INCREMENT），否則 Hibernate 必須逐筆 INSERT 才能取得 ID，無法批次寫入
+    @GenericGenerator(name = "orders_id_gen", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+        @Parameter(name = "table_name", value = "id_generators"),
+        @Parameter(name = "segment_value", value = "orders"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(name = "order_id")  // 對應資料表的欄位名稱為 "order_id"
     private Long orderId;  // 訂單 ID（內部使用的唯一識別碼）
 
@@ -26,7 +43,7 @@ public class Order {  // 定義 Order 類別
     // name = "order_number": 對應資料表的欄位名稱
     // unique = true: 此欄位必須是唯一值，不能重複
     // nullable = false: 此欄位不可為 NULL（必填）
-    private String orderNumber;  // 訂單編號（對外顯示，例如：ORD20250101001）
+    private String orderNumber;  // 訂單編號（對外顯示，例如：ORD20250101120000123000100000）
 
     // ========== 客戶關聯欄位 ==========
     @ManyToOne  // 多對一關聯：多個訂單可以屬於同一個客戶
@@ -80,6 +97,14 @@ public class Order {  // 定義 Order 類別
     @Temporal(TemporalType.TIMESTAMP)  // 儲存格式為 TIMESTAMP
     private Date updatedDate;  // 訂單更新時間
 
+    // ========== 庫存欄位 ==========
+    @Column(name = "stock_reserved")  // 對應欄位 "stock_reserved"，舊訂單為 NULL
+    private Boolean stockReserved;  // 建立訂單時是否已扣除庫存（取消訂單時依此決定是否歸還庫存）
+
+    @Column(name = "stock_pending", updatable = false)  
+    // updatable = false：新增後只由庫存對帳以條件式 UPDATE 清除，修改訂單時不會把舊的值寫回去
+    private Boolean stockPending;  // 限時搶購的訂單：庫存只在記憶體中扣除，尚未寫入資料庫
+
     // ========== 建構子 ==========
     
     /**
@@ -107,7 +132,7 @@ public class Order {  // 定義 Order 類別
         this.recipientName = recipientName;  // 設定收貨人姓名
         this.recipientPhone = recipientPhone;  // 設定收貨人電話
         this.shippingAddress = shippingAddress;  // 設定收貨地址
-        this.orderNumber = generateOrderNumber();  // 自動產生訂單編號
+        // 訂單編號由 OrderNumberGenerator 產生，建立訂單後呼叫 setOrderNumber() 設定
     }
 
     // ========== Getters and Setters ==========
@@ -305,6 +330,39 @@ public class Order {  // 定義 Order 類別
         this.updatedDate = updatedDate;  
     }
 
+    /**
+     * 建立訂單時是否已扣除庫存
+     * @return true 表示已扣除（取消時要歸還）
+     */
+    public boolean isStockReserved() { 
+        return Boolean.TRUE.equals(stockReserved);  
+    }
+    
+    /**
+     * 設定是否已扣除庫存
+     * @param stockReserved 是否已扣除庫存
+     */
+    public void setStockReserved(boolean stockReserved) { 
+        this.stockReserved = stockReserved;  
+    }
+    
+    /**
+     * 是否有尚未寫入資料庫的庫存扣除（限時搶購）
+     * 注意：此值為載入訂單當時的狀態，對帳後以資料庫為準
+     * @return true 表示建立時尚未寫入
+     */
+    public boolean isStockPending() { 
+        return Boolean.TRUE.equals(stockPending);  
+    }
+    
+    /**
+     * 設定是否有尚未寫入資料庫的庫存扣除（只在新增訂單時有效）
+     * @param stockPending 是否尚未寫入
+     */
+    public void setStockPending(boolean stockPending) { 
+        this.stockPending = stockPending;  
+    }
+
     // ========== 業務方法 ==========
     
     /**
@@ -333,18 +391,6 @@ public class Order {  // 定義 Order 類別
         this.totalAmount = total;  // 將計算結果設定給 totalAmount 屬性
     }
 
-    /**
-     * 產生訂單編號
-     * 格式：ORD + 時間戳記
-     * 實際專案中應該從資料庫取得流水號，確保唯一性
-     * @return 訂單編號字串
-     */
-    private String generateOrderNumber() {
-        // System.currentTimeMillis() 取得當前時間的毫秒數
-        // "ORD" + 毫秒數 組合成訂單編號，例如：ORD1704153600000
-        return "ORD" + System.currentTimeMillis();
-    }
-
     /**
      * 覆寫 toString() 方法
      * 當需要將 Order 物件轉換成字串時（例如：System.out.println(order)）會呼叫此方法
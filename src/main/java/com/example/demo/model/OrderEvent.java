@@ -0,0 +1,86 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 訂單事件（由 OrderEventBus 在交易提交後發布）
+ *
+ * 事件物件預先配置在環形緩衝區中重複使用（發布時只填入欄位，不建立新物件），
+ * 所以是可變的：監聽器只能在 onOrderEvent() 中讀取，需要保留的資料請自行複製
+ */
+public class OrderEvent {
+
+    /**
+     * 事件種類
+     */
+    public enum Type {
+        //建立訂單（previousStatus 為 null）
+        ORDER_CREATED,
+        //訂單狀態改變（不包含取消）
+        ORDER_STATUS_CHANGED,
+        //訂單取消（客戶取消或管理員改為已取消）
+        ORDER_CANCELLED
+    }
+
+    private Type type;
+    private Long orderId;
+    private String orderNumber;
+    private Long customerId;
+    private OrderStatus previousStatus;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    //交易提交的時間（毫秒）
+    private long timestamp;
+
+    /**
+     * 填入事件內容（發布時由 OrderEventBus 呼叫）
+     */
+    public void set(Type type, Order order, OrderStatus previousStatus, long timestamp) {
+        this.type = type;
+        this.orderId = order.getOrderId();
+        this.orderNumber = order.getOrderNumber();
+        this.customerId = order.getCustomer() != null ? order.getCustomer().getCustNum() : null;
+        this.previousStatus = previousStatus;
+        this.status = order.getOrderStatus();
+        this.totalAmount = order.getTotalAmount();
+        this.timestamp = timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return type + "[orderId=" + orderId + ", orderNumber=" + orderNumber
+                + ", " + previousStatus + " -> " + status + "]";
+    }
+}
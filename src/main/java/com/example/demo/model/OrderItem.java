@@ -1,6 +1,8 @@
 package com.example.demo.model;  // 定義套件
 
 import javax.persistence.*;  // 引入 JPA 註解
+import org.hibernate.annotations.GenericGenerator;  // Hibernate 自訂 ID 產生器
+import org.hibernate.annotations.Parameter;  // ID 產生器參數
 import java.math.BigDecimal;  // 引入 BigDecimal 用於金額計算
 
 /**
@@ -15,7 +17,15 @@ public class OrderItem {  // 定義 OrderItem 類別
 
     // ========== 主鍵欄位 ==========
     @Id  // 標示為主鍵
-    @GeneratedValue(strategy = GenerationType.IDENTITY)  // 主鍵自動遞增
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_items_id_gen")  
+    // 使用 id_generators 資料表配號（pooled-lo：一次取得 50 個 ID，在記憶體中分配）
+    // 不使用 IDENTITY（AUTO_INCREMENT），否則 Hibernate 必須逐筆 INSERT 才能取得 ID，無法批次寫入
+    @GenericGenerator(name = "order_items_id_gen", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+        @Parameter(name = "table_name", value = "id_generators"),
+        @Parameter(name = "segment_value", value = "order_items"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(name = "order_item_id")  // 對應欄位名稱
     private Long orderItemId;  // 訂單項目 ID
 
@@ -52,6 +62,13 @@ public class OrderItem {  // 定義 OrderItem 類別
     // 例如：今天買 iPhone 30000 元，明天降價到 25000 元，我的訂單還是 30000 元
     private BigDecimal unitPrice;  // 購買時的單價快照
 
+    // ========== 庫存欄位 ==========
+    @Column(name = "stock_pending", updatable = false)  
+    // updatable = false：只在新增時寫入；訂單是否已對帳以 orders.stock_pending 為準
+    // 同一張訂單可能同時有限時搶購與一般商品：只有搶購商品的庫存延後到對帳時才寫入資料庫
+    // null 表示加入此欄位前建立的項目（沿用訂單的標記，視為尚未寫入）
+    private Boolean stockPending;  // 此項目的庫存是否只在記憶體中扣除（限時搶購）
+
     // ========== 建構子 ==========
     
     /**
@@ -173,6 +190,23 @@ public class OrderItem {  // 定義 OrderItem 類別
         this.unitPrice = unitPrice;  
     }
 
+    /**
+     * 此項目的庫存是否由限時搶購在記憶體中扣除（訂單的 stockPending 為 true 時才有意義）
+     * 加入此欄位前建立的項目（null）與訂單的標記相同
+     * @return true 表示資料庫庫存在對帳時才扣除
+     */
+    public boolean isStockPending() { 
+        return !Boolean.FALSE.equals(stockPending);  
+    }
+    
+    /**
+     * 設定此項目的庫存是否由限時搶購扣除（只在新增訂單時有效）
+     * @param stockPending 是否尚未寫入資料庫
+     */
+    public void setStockPending(boolean stockPending) { 
+        this.stockPending = stockPending;  
+    }
+
     // ========== 業務方法 ==========
     
     /**
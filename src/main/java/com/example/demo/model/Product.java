@@ -1,12 +1,25 @@
 package com.example.demo.model;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
+import java.util.Date;
 
 @Entity
-@Table(name = "products")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")  // 二級快取（讀多寫少）
+@Table(name = "products", indexes = {
+        // 依類型查詢（findByType）與類型統計（GROUP BY prod_type）用索引
+        // 列表排序與分頁由目錄快照完成，不再需要價格、名稱的排序索引
+        @Index(name = "idx_products_type_num", columnList = "prod_type, prod_num")
+})
 public class Product {
 
+    //縮圖寬度（像素）：列表頁依螢幕寬度以 srcset 選擇
+    public static final int THUMBNAIL_WIDTH = 320;
+    public static final int MEDIUM_WIDTH = 640;
+    public static final int[] IMAGE_VARIANT_WIDTHS = {THUMBNAIL_WIDTH, MEDIUM_WIDTH};
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "prod_num")
@@ -31,6 +44,25 @@ public class Product {
     //產品描述
     @Column(name = "prod_description", columnDefinition = "TEXT")
     private String prodDescription;
+    
+    //已產生的縮圖寬度（例如 "320,640"），由背景工作在上傳圖片後寫入，null 表示尚未產生
+    @Column(name = "prod_image_variants", length = 50)
+    private String imageVariants;
+    
+    //庫存數量，null 表示不追蹤庫存（不限數量）
+    //只在新增時由 Hibernate 寫入，之後一律由 InventoryService 以條件式 UPDATE 增減，
+    //修改產品其他欄位時不會覆蓋結帳中被扣除的數量
+    @Column(name = "prod_stock", updatable = false)
+    private Integer stock;
+    
+    //是否為限時搶購商品（由 InventoryService 開啟與結束，此欄位唯讀）
+    @Column(name = "prod_flash_sale", insertable = false, updatable = false)
+    private Boolean flashSale;
+    
+    //最後修改時間（新增、修改時自動更新，產品頁的 Last-Modified / ETag 使用）
+    @Column(name = "updated_date")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedDate;
 
     // Constructors
     public Product() {}
@@ -46,6 +78,24 @@ public class Product {
         this.prodDescription = prodDescription;
     }
 
+    //複製建構子（建立與 Hibernate Session 無關的副本，供目錄快照等唯讀用途）
+    public Product(Product source) {
+        this(source.prodName, source.prodType, source.prodPrice,
+             source.prodLine, source.prodImage, source.prodDescription);
+        this.prodNum = source.prodNum;
+        this.imageVariants = source.imageVariants;
+        this.stock = source.stock;
+        this.flashSale = source.flashSale;
+        this.updatedDate = source.updatedDate;
+    }
+    
+    //新增或修改前更新最後修改時間
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.updatedDate = new Date();
+    }
+
     // Getters and Setters
     public Long getProdNum() { 
     	return prodNum; 
@@ -105,6 +155,46 @@ public class Product {
         this.prodDescription = prodDescription;
     }
     
+    public String getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(String imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+    
+    //檢查是否已產生縮圖
+    public boolean hasImageVariants() {
+        return hasImage() && imageVariants != null && !imageVariants.isEmpty();
+    }
+
+    //取得庫存（資料載入當時的值，結帳與扣庫存以 InventoryService 為準）
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    //是否追蹤庫存
+    public boolean isStockTracked() {
+        return stock != null;
+    }
+
+    //是否為限時搶購商品（資料載入當時的狀態）
+    public boolean isFlashSale() {
+        return Boolean.TRUE.equals(flashSale);
+    }
+
+    public Date getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public void setUpdatedDate(Date updatedDate) {
+        this.updatedDate = updatedDate;
+    }
+    
     //取得圖片的完整 URL 路徑
     public String getImageUrl() {
         // 資料庫已儲存完整相對路徑，直接返回即可
@@ -0,0 +1,94 @@
+package com.example.demo.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 產品分頁游標（keyset / seek 分頁）
+ *
+ * 記錄上一頁最後一筆產品的排序欄位值與產品編號，
+ * 下一頁從這個位置之後開始查詢，不需要 OFFSET 掃過前面所有資料
+ *
+ * 對外以 URL-safe Base64 字串傳遞，例如 /products?cursor=xxxx
+ */
+public class ProductCursor {
+
+    //排序欄位的值（價格或名稱，依排序方式而定；預設排序時為 null）
+    private final String sortValue;
+
+    //上一頁最後一筆產品的編號（排序值相同時用來決定先後）
+    private final Long prodNum;
+
+    public ProductCursor(String sortValue, Long prodNum) {
+        this.sortValue = sortValue;
+        this.prodNum = prodNum;
+    }
+
+    /**
+     * 依排序方式從產品建立游標
+     *
+     * @param product 本頁最後一筆產品
+     * @param sort 排序方式（price_asc, price_desc, name_asc, name_desc，可為 null）
+     * @return 指向該產品之後的游標
+     */
+    public static ProductCursor after(Product product, String sort) {
+        String value = null;
+        if (sort != null && sort.startsWith("price_")) {
+            value = product.getProdPrice().toPlainString();
+        } else if (sort != null && sort.startsWith("name_")) {
+            value = product.getProdName();
+        }
+        return new ProductCursor(value, product.getProdNum());
+    }
+
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public Long getProdNum() {
+        return prodNum;
+    }
+
+    /**
+     * 編碼成 URL 可用的字串
+     * 格式：產品編號 + 換行 + 排序值，再做 Base64
+     */
+    public String encode() {
+        String raw = prodNum + "\n" + (sortValue != null ? sortValue : "");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游標字串
+     *
+     * @param token 游標字串
+     * @return 游標物件；字串為空或格式錯誤時返回 null（從第一頁開始）
+     */
+    public static ProductCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('\n');
+            if (separator <= 0) {
+                return null;
+            }
+            Long prodNum = Long.valueOf(raw.substring(0, separator));
+            String value = raw.substring(separator + 1);
+            return new ProductCursor(value.isEmpty() ? null : value, prodNum);
+        } catch (IllegalArgumentException e) {
+            // Base64 或數字格式錯誤（NumberFormatException 也是 IllegalArgumentException）
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCursor{" +
+                "sortValue='" + sortValue + '\'' +
+                ", prodNum=" + prodNum +
+                '}';
+    }
+}
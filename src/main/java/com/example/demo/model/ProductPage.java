@@ -0,0 +1,34 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * 產品分頁結果
+ * 包含本頁的產品與下一頁的游標
+ */
+public class ProductPage {
+
+    //本頁的產品
+    private final List<Product> products;
+
+    //下一頁游標（沒有下一頁時為 null）
+    private final String nextCursor;
+
+    public ProductPage(List<Product> products, String nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    //是否還有下一頁
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
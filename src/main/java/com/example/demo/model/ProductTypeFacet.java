@@ -0,0 +1,33 @@
+package com.example.demo.model;
+
+/**
+ * 產品類型統計（篩選用）
+ * 產品類型與該類型的產品數量，提供給產品列表的類型下拉選單使用
+ */
+public class ProductTypeFacet {
+
+    //產品類型
+    private final String type;
+
+    //該類型的產品數量
+    private final long count;
+
+    //HQL 建構子查詢使用（SELECT new ...ProductTypeFacet(p.prodType, COUNT(p))）
+    public ProductTypeFacet(String type, Long count) {
+        this.type = type;
+        this.count = count != null ? count : 0L;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + count + ")";
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.demo.model;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 使用者實體類別（管理者）
  * 用於系統管理員登入
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")  // 二級快取（讀多寫少）
 @Table(name = "users")
 public class User {
 
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CatalogSnapshot;
+import com.example.demo.model.Product;
+
+/**
+ * 產品目錄快照 Service 介面
+ * 提供首頁、產品列表使用的唯讀產品目錄，不需每次查詢資料庫
+ */
+public interface CatalogSnapshotService {
+    
+    /**
+     * 取得目前的目錄快照
+     * 第一次呼叫時從資料庫載入所有產品
+     * 
+     * @return 不可修改的目錄快照
+     */
+    CatalogSnapshot getSnapshot();
+    
+    /**
+     * 產品新增或修改後替換快照（交易提交後才替換）
+     * 
+     * @param product 產品物件
+     */
+    void onProductSaved(Product product);
+    
+    /**
+     * 產品刪除後替換快照（交易提交後才替換）
+     * 
+     * @param prodNum 產品編號
+     */
+    void onProductDeleted(Long prodNum);
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import java.util.Map;
+
+/**
+ * 庫存 Service 介面
+ * 結帳時扣除庫存、取消訂單時歸還庫存，避免促銷時超賣
+ *
+ * 限時搶購模式（依產品開啟）：庫存在記憶體中分片扣除，不存取資料庫，
+ * 由背景對帳（StockReconciler）批次寫入資料庫
+ */
+public interface InventoryService {
+
+    /**
+     * 扣除庫存的結果
+     */
+    enum Reservation {
+        //已扣除資料庫庫存（或產品不追蹤庫存）
+        RESERVED,
+        //限時搶購：已在記憶體中扣除，交易提交後由背景對帳寫入資料庫（訂單需標記 stockPending）
+        PENDING,
+        //庫存不足
+        REJECTED
+    }
+
+    /**
+     * 扣除庫存（必須在建立訂單的交易中呼叫，交易回滾時一併還原）
+     *
+     * 多項產品請依產品編號由小到大呼叫，同時結帳的訂單以相同順序鎖定資料列，不會發生死結
+     *
+     * @param prodNum 產品編號
+     * @param quantity 數量
+     * @return 扣除結果
+     */
+    Reservation reserve(Long prodNum, int quantity);
+
+    /**
+     * 歸還庫存（取消訂單時呼叫）
+     *
+     * @param prodNum 產品編號
+     * @param quantity 數量
+     * @param applied 資料庫庫存是否已扣除（限時搶購的訂單尚未對帳時為 false，只歸還記憶體中的數量）
+     */
+    void release(Long prodNum, int quantity, boolean applied);
+
+    /**
+     * 交易提交後將訂單交給背景對帳（建立 PENDING 訂單後呼叫）
+     *
+     * @param orderId 訂單 ID
+     */
+    void schedulePending(Long orderId);
+
+    /**
+     * 取消尚未對帳的訂單（取消訂單時呼叫）
+     *
+     * @param orderId 訂單 ID
+     * @return true 表示訂單尚未對帳（資料庫庫存沒有扣除，之後也不會扣除），false 表示已對帳
+     */
+    boolean cancelPending(Long orderId);
+
+    /**
+     * 對帳：將佇列中的訂單批次寫入資料庫庫存（由 StockReconciler 定期呼叫）
+     *
+     * @return 本次寫入的訂單數
+     */
+    int reconcileQueued();
+
+    /**
+     * 啟動時復原：補寫上次關閉（或當機）前尚未對帳的訂單，再從資料庫載入限時搶購商品的庫存
+     */
+    void recover();
+
+    /**
+     * 開啟限時搶購（產品必須有設定庫存）
+     *
+     * @param prodNum 產品編號
+     */
+    void startFlashSale(Long prodNum);
+
+    /**
+     * 結束限時搶購：等待已由分片扣除、尚未提交的結帳完成，再將尚未對帳的訂單寫入資料庫
+     *
+     * @param prodNum 產品編號
+     */
+    void endFlashSale(Long prodNum);
+
+    /**
+     * 查詢目前的庫存（直接讀取資料庫）
+     *
+     * @param prodNum 產品編號
+     * @return 庫存數量，null 表示不追蹤庫存
+     */
+    Integer getStock(Long prodNum);
+
+    /**
+     * 設定庫存（管理員修改產品時呼叫，限時搶購進行中不可設定）
+     *
+     * @param prodNum 產品編號
+     * @param stock 庫存數量，null 表示不追蹤庫存
+     */
+    void setStock(Long prodNum, Integer stock);
+
+    /**
+     * 取得庫存統計快照（扣除、不足、歸還、對帳次數與記憶體中的庫存數）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> snapshot();
+}
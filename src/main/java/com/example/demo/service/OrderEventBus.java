@@ -0,0 +1,34 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEvent;
+import com.example.demo.model.OrderStatus;
+
+import java.util.Map;
+
+/**
+ * 訂單事件匯流排（同一個程序內）
+ *
+ * 訂單建立、狀態改變、取消時由 OrderService 發布事件，
+ * 所有 OrderEventListener 各自在背景執行緒收到，不需要寫進 OrderService
+ */
+public interface OrderEventBus {
+
+    /**
+     * 在目前交易提交後發布事件（不在交易中時立即發布）
+     *
+     * 發布時不等待監聽器：事件放入預先配置的環形緩衝區，緩衝區已滿時捨棄並計入統計
+     *
+     * @param type 事件種類
+     * @param order 訂單（提交時讀取訂單編號、狀態與金額）
+     * @param previousStatus 原本的狀態（建立訂單時為 null）
+     */
+    void publishAfterCommit(OrderEvent.Type type, Order order, OrderStatus previousStatus);
+
+    /**
+     * 取得統計快照（已發布、捨棄的事件數，以及各監聽器已處理的事件數、批次數與延遲）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> snapshot();
+}
@@ -0,0 +1,20 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OrderEvent;
+
+/**
+ * 訂單事件監聽器
+ *
+ * 實作此介面的 Spring Bean 會自動註冊到 OrderEventBus，每個監聽器有自己的執行緒，
+ * 依發布順序批次收到所有訂單事件（交易提交後才發布，回滾的訂單不會收到）
+ */
+public interface OrderEventListener {
+
+    /**
+     * 處理訂單事件
+     *
+     * @param event 訂單事件（處理完後會被重複使用，需要保留的資料請自行複製）
+     * @param endOfBatch 是否為這一批的最後一個事件（可在此時一次寫出累積的結果）
+     */
+    void onOrderEvent(OrderEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+/**
+ * 訂單編號產生器介面
+ * 結帳時由 OrderService 呼叫，產生對外顯示的訂單編號
+ * 實作必須保證在多執行緒、多個節點同時呼叫時不會產生重複的編號
+ */
+public interface OrderNumberGenerator {
+    
+    /**
+     * 產生下一個訂單編號
+     * 
+     * @return 訂單編號字串（例如：ORD20250101120000123000100000）
+     */
+    String nextOrderNumber();
+}
@@ -87,7 +87,7 @@ public interface OrderService {
     
     /**
      * 搜尋訂單
-     * 根據訂單編號或客戶名稱搜尋訂單
+     * 根據訂單編號、客戶名稱或收件人名稱的開頭（前綴）搜尋訂單
      * 管理員後台的搜尋功能
      * @param keyword 搜尋關鍵字（訂單編號或客戶名稱）
      * @return 符合搜尋條件的訂單 List
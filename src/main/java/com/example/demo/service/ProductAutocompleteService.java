@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Product;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 產品名稱自動完成 Service 介面
+ * 使用者輸入時依字首提示產品名稱，銷量高的排在前面
+ */
+public interface ProductAutocompleteService {
+    
+    /**
+     * 取得以字首開頭的產品名稱
+     * 
+     * @param prefix 使用者目前輸入的文字
+     * @param limit 最多回傳幾筆
+     * @return 產品名稱 List（依銷量由高到低）
+     */
+    List<String> suggest(String prefix, int limit);
+    
+    /**
+     * 從資料庫重新建立字首樹（啟動時自動執行）
+     */
+    void rebuild();
+    
+    /**
+     * 產品新增或修改後更新字首樹（交易提交後才更新）
+     * 
+     * @param product 產品物件
+     */
+    void onProductSaved(Product product);
+    
+    /**
+     * 產品刪除後從字首樹移除（交易提交後才移除）
+     * 
+     * @param prodNum 產品編號
+     */
+    void onProductDeleted(Long prodNum);
+    
+    /**
+     * 訂單建立後增加產品銷量（交易提交後才更新）
+     * 
+     * @param quantities 產品編號 → 購買數量
+     */
+    void onProductsSold(Map<Long, Integer> quantities);
+}
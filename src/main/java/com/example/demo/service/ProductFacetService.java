@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ProductTypeFacet;
+import java.util.List;
+
+/**
+ * 產品類型統計 Service 介面
+ * 提供產品列表篩選用的類型清單與數量，結果會快取在記憶體中
+ */
+public interface ProductFacetService {
+    
+    /**
+     * 取得所有產品類型與各類型的產品數量
+     * 第一次呼叫時查詢資料庫，之後回傳快取的結果
+     * 
+     * @return 產品類型統計的 List（依類型排序，不可修改）
+     */
+    List<ProductTypeFacet> getTypeFacets();
+    
+    /**
+     * 取得所有產品類型（由快取的統計資料取得）
+     * 
+     * @return 產品類型的 List（依類型排序，不可修改）
+     */
+    List<String> getProductTypes();
+    
+    /**
+     * 清除快取
+     * 產品新增、修改、刪除後呼叫；在交易中呼叫時會等到交易提交後才清除
+     */
+    void invalidate();
+}
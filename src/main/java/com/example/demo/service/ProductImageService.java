@@ -0,0 +1,34 @@
+package com.example.demo.service;
+
+/**
+ * 產品圖片 Service 介面
+ * 上傳圖片後在背景產生列表頁使用的縮圖
+ */
+public interface ProductImageService {
+    
+    /**
+     * 在背景產生縮圖，完成後記錄到產品（不會等待產生完成）
+     * 佇列已滿時略過，列表頁繼續使用原圖
+     * 
+     * @param prodNum 產品編號
+     * @param imageUrl 產品圖片路徑（例如 /images/products/abc.jpg）
+     */
+    void generateVariants(Long prodNum, String imageUrl);
+    
+    /**
+     * 刪除圖片的所有縮圖（刪除原圖時一起呼叫）
+     * 
+     * @param imageUrl 產品圖片路徑
+     */
+    void deleteVariants(String imageUrl);
+    
+    /**
+     * 取得指定寬度的縮圖路徑（頁面以 ${@productImageService.getVariantUrl(...)} 呼叫）
+     * 例如 /images/products/abc.png → /images/products/abc-w320.jpg
+     * 
+     * @param imageUrl 產品圖片路徑
+     * @param width 縮圖寬度
+     * @return 縮圖路徑
+     */
+    String getVariantUrl(String imageUrl, int width);
+}
@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Product;
+import java.util.List;
+
+/**
+ * 產品全文搜尋 Service 介面
+ * 以記憶體內的倒排索引搜尋產品名稱、類型、描述，並依相關程度（BM25）排序
+ */
+public interface ProductSearchService {
+    
+    /**
+     * 搜尋產品
+     * 第一次呼叫時從資料庫載入所有產品建立索引
+     * 
+     * @param keyword 搜尋關鍵字（中文以相鄰兩字比對，英文以單字比對）
+     * @param type 產品類型（可為 null，表示不限類型）
+     * @param limit 最多回傳幾筆
+     * @return 符合的產品編號 List（依相關程度由高到低）
+     */
+    List<Long> search(String keyword, String type, int limit);
+    
+    /**
+     * 產品新增或修改後更新索引
+     * 在交易中呼叫時會等到交易提交後才更新
+     * 
+     * @param product 產品物件
+     */
+    void onProductSaved(Product product);
+    
+    /**
+     * 產品刪除後從索引移除
+     * 在交易中呼叫時會等到交易提交後才移除
+     * 
+     * @param prodNum 產品編號
+     */
+    void onProductDeleted(Long prodNum);
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductPage;
 import java.util.List;
 
 /**
@@ -32,10 +33,12 @@ public interface ProductService {
     
     /**
      * 更新產品
+     * 修改庫存與其他欄位在同一個交易中完成：無法修改庫存時（例如限時搶購進行中）整筆都不會儲存
      * @param id 產品 ID
      * @param product 更新的產品資料
+     * @param updateStock 是否一併設定庫存（管理員有修改庫存時才設定，避免覆蓋編輯期間結帳扣除的數量）
      */
-    void updateProduct(Long id, Product product);
+    void updateProduct(Long id, Product product, boolean updateStock);
     
     /**
      * 刪除產品
@@ -43,15 +46,25 @@ public interface ProductService {
      */
     void deleteProduct(Long id);
     
+    /**
+     * 記錄已產生的縮圖寬度（背景產生縮圖完成後呼叫）
+     * 產品圖片已被換掉時不記錄
+     * 
+     * @param id 產品 ID
+     * @param imageUrl 產生縮圖時的產品圖片路徑
+     * @param variants 縮圖寬度（例如 "320,640"）
+     */
+    void updateImageVariants(Long id, String imageUrl, String variants);
+    
     // ===== 搜尋和篩選方法 =====
     
     /**
      * 搜尋產品（支援關鍵字、類型、排序）
      * 
      * 功能說明：
-     * 1. 根據關鍵字搜尋產品名稱（模糊搜尋）
+     * 1. 根據關鍵字搜尋產品名稱、類型、描述（全文搜尋，依相關程度排序）
      * 2. 根據類型篩選產品
-     * 3. 根據排序方式排序結果
+     * 3. 根據排序方式排序結果（有指定時取代相關程度排序）
      * 
      * @param keyword 搜尋關鍵字（可為 null）
      * @param type 產品類型（可為 null）
@@ -61,12 +74,20 @@ public interface ProductService {
     List<Product> searchProducts(String keyword, String type, String sort);
     
     /**
-     * 取得所有產品並排序
+     * 分頁搜尋產品（支援關鍵字、類型、排序）
+     * 
+     * 功能說明：
+     * 1. 條件與 searchProducts 相同，但只回傳一頁
+     * 2. 使用游標（keyset）分頁，排序與分頁由目錄快照完成
      * 
-     * @param sort 排序方式（price_asc, price_desc, name_asc, name_desc）
-     * @return 排序後的產品 List
+     * @param keyword 搜尋關鍵字（可為 null）
+     * @param type 產品類型（可為 null）
+     * @param sort 排序方式（可為 null）
+     * @param cursor 上一頁回傳的 nextCursor（第一頁為 null）
+     * @param pageSize 每頁筆數
+     * @return 本頁產品與下一頁游標
      */
-    List<Product> getAllProductsSorted(String sort);
+    ProductPage getProductPage(String keyword, String type, String sort, String cursor, int pageSize);
     
     /**
      * ⭐ 取得所有產品類型
@@ -75,6 +96,16 @@ public interface ProductService {
      */
     List<String> getAllProductTypes();
     
+    /**
+     * 檢查圖片是否還有其他產品使用
+     * 圖片以內容雜湊命名，相同的圖片只儲存一份，刪除前必須確認
+     * 
+     * @param imageUrl 圖片路徑（例如 /images/products/abc.jpg）
+     * @param prodNum 要排除的產品編號（正在修改或刪除的產品）
+     * @return true 表示還有其他產品使用
+     */
+    boolean isImageUsedByOthers(String imageUrl, Long prodNum);
+    
     // ===== 管理員後台統計方法 =====
     
     /**
@@ -0,0 +1,70 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.CatalogSnapshot;
+import com.example.demo.model.Product;
+import com.example.demo.service.CatalogSnapshotService;
+import com.example.demo.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 產品目錄快照 Service 實作類別
+ * 
+ * 實作說明：
+ * 1. 快照存放在 volatile 欄位，讀取時不需加鎖
+ * 2. 產品異動時以目前的快照建立新快照再整個替換（copy-on-write），不需重新查詢資料庫
+ * 3. 載入與替換使用同一把鎖：載入期間提交的異動會等載入完成後再套用，不會遺失
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService {
+
+    @Autowired
+    private ProductDAO productDAO;
+    
+    //目前的快照（null 表示尚未載入）
+    private volatile CatalogSnapshot snapshot;
+    
+    private final Object snapshotLock = new Object();
+    
+    @Override
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (snapshotLock) {
+                current = snapshot;
+                if (current == null) {
+                    current = CatalogSnapshot.of(productDAO.findAll());
+                    snapshot = current;
+                    System.out.println("✓ 產品目錄快照已載入：" + current.size() + " 項產品");
+                }
+            }
+        }
+        return current;
+    }
+    
+    @Override
+    public void onProductSaved(Product product) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (snapshotLock) {
+                // 尚未載入時不需更新，之後載入時會從資料庫讀到最新資料
+                if (snapshot != null) {
+                    snapshot = snapshot.with(product);
+                }
+            }
+        });
+    }
+    
+    @Override
+    public void onProductDeleted(Long prodNum) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (snapshotLock) {
+                if (snapshot != null) {
+                    snapshot = snapshot.without(prodNum);
+                }
+            }
+        });
+    }
+}
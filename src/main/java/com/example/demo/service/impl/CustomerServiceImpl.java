@@ -1,6 +1,7 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.dao.CustomerDAO;
+import com.example.demo.dao.impl.EntityCountCache;
 import com.example.demo.model.Customer;
 import com.example.demo.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,9 @@ public class CustomerServiceImpl implements CustomerService {
     
     @Autowired
     private CustomerDAO customerDAO;
+
+    @Autowired
+    private EntityCountCache entityCountCache;
     
     @Override
     public List<Customer> getAllCustomers() {
@@ -86,10 +90,7 @@ public class CustomerServiceImpl implements CustomerService {
     @Override
     @Transactional(readOnly = true)
     public long getTotalCustomerCount() {
-        // 取得所有客戶
-        List<Customer> allCustomers = getAllCustomers();
-        
-        // 回傳客戶總數
-        return allCustomers.size();
+        // 使用 COUNT(*) 查詢（開啟筆數快取時直接回傳記憶體中的值）
+        return entityCountCache.count(Customer.class, customerDAO::count);
     }
 }
\ No newline at end of file
@@ -0,0 +1,463 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.OrderDAO;
+import com.example.demo.dao.OrderItemDAO;
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.service.InventoryService;
+import com.example.demo.util.ShardedStockCounter;
+import com.example.demo.util.TransactionCallbacks;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 庫存 Service 實作類別
+ *
+ * 實作說明：
+ * 1. 資料庫是庫存的唯一依據：以條件式 UPDATE（prod_stock >= 數量）扣除，
+ *    只鎖定該產品的資料列，庫存不足時不會扣成負數
+ * 2. 每個產品在記憶體中另有一個原子計數器（AtomicInteger，以 CAS 扣除，不加鎖）：
+ *    熱門商品售完後，之後的結帳直接由計數器拒絕，不再排隊等待同一筆資料列的鎖
+ * 3. 計數器只是提前拒絕用的近似值：超過 inventory.counter.ttlSeconds 或與資料庫不一致時重新載入，
+ *    其他節點的結帳與取消最多延遲這段時間才反映到本機的計數器
+ * 4. 交易回滾時歸還計數器；資料庫的扣除由交易本身還原
+ *
+ * 限時搶購模式（startFlashSale）：
+ * 1. 庫存載入 ShardedStockCounter，結帳只在記憶體中扣除，不鎖定資料列，售完時直接拒絕
+ * 2. 訂單與搶購商品的訂單項目以 stock_pending 標記，與訂單在同一個交易中寫入，交易提交後放進對帳佇列
+ *    （同一張訂單中的一般商品在結帳時已扣除資料庫庫存，項目不標記）
+ * 3. StockReconciler 定期批次對帳：鎖定仍標記的訂單，將標記的項目依產品加總後扣除資料庫庫存並清除標記（同一個交易）
+ * 4. 當機時佇列會遺失，但標記已隨訂單寫入資料庫：啟動時 recover() 先補扣所有標記的訂單，
+ *    再以資料庫的庫存重新建立分片，不會重複扣除也不會遺漏
+ * 5. 記憶體中的分片是本機的庫存，搶購商品的結帳需由同一台伺服器處理
+ */
+@Service
+@Transactional
+public class InventoryServiceImpl implements InventoryService, InitializingBean {
+
+    //結束限時搶購時等待進行中結帳的最長時間
+    private static final long END_WAIT_MILLIS = 10000;
+
+    @Autowired
+    private ProductDAO productDAO;
+
+    @Autowired
+    private OrderDAO orderDAO;
+
+    @Autowired
+    private OrderItemDAO orderItemDAO;
+
+    @Autowired
+    private Environment env;
+
+    //產品編號 → 記憶體中的庫存計數器
+    private final ConcurrentHashMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+
+    //產品編號 → 限時搶購（分片計數器與進行中的結帳數）
+    private final ConcurrentHashMap<Long, FlashSale> flashSales = new ConcurrentHashMap<>();
+
+    //等待對帳的限時搶購訂單 ID
+    private BlockingQueue<Long> pendingOrders;
+
+    //佇列已滿時設定，下次對帳改為從資料庫找出標記的訂單
+    private volatile boolean sweepNeeded;
+
+    private long counterTtlNanos;
+    private int flashSaleShards;
+    private int reconcileBatchSize;
+
+    //統計：扣除成功、計數器拒絕、資料庫拒絕、歸還、對帳訂單數、對帳批次數
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejectedInMemory = new LongAdder();
+    private final LongAdder rejectedByDatabase = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder reconciledOrders = new LongAdder();
+    private final LongAdder reconcileBatches = new LongAdder();
+
+    @Override
+    public void afterPropertiesSet() {
+        counterTtlNanos = TimeUnit.SECONDS.toNanos(
+                env.getProperty("inventory.counter.ttlSeconds", Long.class, 10L));
+        flashSaleShards = env.getProperty("flashsale.shards", Integer.class,
+                Runtime.getRuntime().availableProcessors());
+        reconcileBatchSize = env.getProperty("flashsale.batchSize", Integer.class, 200);
+        pendingOrders = new ArrayBlockingQueue<>(env.getProperty("flashsale.queueSize", Integer.class, 10000));
+    }
+
+    @Override
+    public Reservation reserve(Long prodNum, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("購買數量必須大於 0");
+        }
+        // 限時搶購：只在記憶體中扣除
+        FlashSale flashSale = flashSales.get(prodNum);
+        if (flashSale != null) {
+            Reservation reservation = reserveFlashSale(prodNum, flashSale, quantity);
+            if (reservation != null) {
+                return reservation;
+            }
+            // 搶購剛結束，改由資料庫扣除
+        }
+
+        StockCounter counter = counter(prodNum);
+        if (counter.isTracked() && !counter.tryAcquire(quantity)) {
+            rejectedInMemory.increment();
+            return Reservation.REJECTED;
+        }
+
+        boolean decreased;
+        try {
+            decreased = productDAO.decreaseStock(prodNum, quantity);
+        } catch (RuntimeException e) {
+            counter.release(quantity);
+            throw e;
+        }
+        if (!decreased) {
+            // 計數器與資料庫不一致（其他節點已賣出），下次重新載入
+            counter.release(quantity);
+            counters.remove(prodNum, counter);
+            // 讀取 flashSales 之後才開始限時搶購：資料庫不再扣除（分片已由開始時的庫存建立），改由分片扣除
+            FlashSale started = flashSales.get(prodNum);
+            Reservation reservation = started != null ? reserveFlashSale(prodNum, started, quantity) : null;
+            if (reservation != null) {
+                return reservation;
+            }
+            rejectedByDatabase.increment();
+            return Reservation.REJECTED;
+        }
+
+        reserved.increment();
+        TransactionCallbacks.afterRollback(() -> counter.release(quantity));
+        return Reservation.RESERVED;
+    }
+
+    @Override
+    public void release(Long prodNum, int quantity, boolean applied) {
+        if (applied) {
+            productDAO.increaseStock(prodNum, quantity);
+        }
+        released.increment();
+        TransactionCallbacks.afterCommit(() -> {
+            FlashSale flashSale = flashSales.get(prodNum);
+            if (flashSale != null) {
+                flashSale.stock.release(quantity);
+                return;
+            }
+            StockCounter counter = counters.get(prodNum);
+            if (counter != null) {
+                counter.release(quantity);
+            }
+        });
+    }
+
+    @Override
+    public void schedulePending(Long orderId) {
+        TransactionCallbacks.afterCommit(() -> enqueue(Collections.singletonList(orderId)));
+    }
+
+    @Override
+    public boolean cancelPending(Long orderId) {
+        return orderDAO.clearStockPending(Collections.singletonList(orderId)) == 1;
+    }
+
+    @Override
+    public int reconcileQueued() {
+        Set<Long> orderIds = new LinkedHashSet<>();
+        List<Long> drained = new ArrayList<>();
+        pendingOrders.drainTo(drained, reconcileBatchSize);
+        orderIds.addAll(drained);
+        // 佇列曾經滿過：從資料庫補齊沒有放進佇列的訂單
+        boolean swept = false;
+        if (sweepNeeded && orderIds.size() < reconcileBatchSize) {
+            sweepNeeded = false;
+            swept = true;
+            List<Long> found = orderDAO.findStockPendingIds(reconcileBatchSize);
+            orderIds.addAll(found);
+            if (found.size() == reconcileBatchSize) {
+                sweepNeeded = true;
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        // 對帳失敗時放回佇列，下次重試
+        boolean retrySweep = swept;
+        TransactionCallbacks.afterRollback(() -> {
+            enqueue(drained);
+            if (retrySweep) {
+                sweepNeeded = true;
+            }
+        });
+        return reconcile(orderIds);
+    }
+
+    @Override
+    public void recover() {
+        int recovered = 0;
+        while (true) {
+            int count = reconcile(orderDAO.findStockPendingIds(reconcileBatchSize));
+            if (count == 0) {
+                break;
+            }
+            recovered += count;
+        }
+        flashSales.clear();
+        for (Long prodNum : productDAO.findFlashSaleIds()) {
+            Integer stock = productDAO.findStock(prodNum);
+            if (stock != null) {
+                flashSales.put(prodNum, new FlashSale(new ShardedStockCounter(stock, flashSaleShards)));
+            }
+        }
+        System.out.println("✓ 庫存已復原：補扣 " + recovered + " 筆限時搶購訂單，"
+                + flashSales.size() + " 項商品限時搶購中");
+    }
+
+    @Override
+    public void startFlashSale(Long prodNum) {
+        if (flashSales.containsKey(prodNum)) {
+            return;
+        }
+        // 先更新產品資料列（鎖定到交易結束），再讀取庫存：進行中的一般結帳提交後才讀取；
+        // 之後的一般結帳因 prod_flash_sale 已開啟而不會再扣除資料庫庫存，改由分片扣除
+        productDAO.updateFlashSale(prodNum, true);
+        Integer stock = productDAO.findStock(prodNum);
+        if (stock == null) {
+            throw new RuntimeException("限時搶購商品必須設定庫存");
+        }
+        FlashSale flashSale = new FlashSale(new ShardedStockCounter(stock, flashSaleShards));
+        flashSales.put(prodNum, flashSale);
+        TransactionCallbacks.afterRollback(() -> flashSales.remove(prodNum, flashSale));
+        TransactionCallbacks.afterCommit(() -> counters.remove(prodNum));
+        System.out.println("✓ 限時搶購開始：產品 " + prodNum + "，庫存 " + stock + "，分片 " + flashSaleShards);
+    }
+
+    @Override
+    public void endFlashSale(Long prodNum) {
+        // 先停止新的分片扣除，再等待已由分片扣除、尚未提交的訂單完成：
+        // 這些訂單提交時帶有 stock_pending 標記，下方的對帳才找得到
+        // （等待時還沒讀取資料庫，交易的快照在對帳時才建立，看得到這些訂單）
+        FlashSale flashSale = flashSales.remove(prodNum);
+        if (flashSale != null) {
+            TransactionCallbacks.afterRollback(() -> flashSales.put(prodNum, flashSale));
+            awaitInFlight(prodNum, flashSale);
+        }
+        productDAO.updateFlashSale(prodNum, false);
+        // 之後改由資料庫扣除，先寫入所有尚未對帳的訂單
+        int count;
+        do {
+            count = reconcile(orderDAO.findStockPendingIds(reconcileBatchSize));
+        } while (count > 0);
+        TransactionCallbacks.afterCommit(() -> counters.remove(prodNum));
+        System.out.println("✓ 限時搶購結束：產品 " + prodNum);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Integer getStock(Long prodNum) {
+        return productDAO.findStock(prodNum);
+    }
+
+    @Override
+    public void setStock(Long prodNum, Integer stock) {
+        if (flashSales.containsKey(prodNum)) {
+            throw new RuntimeException("限時搶購進行中，請先結束搶購再修改庫存");
+        }
+        productDAO.updateStock(prodNum, stock);
+        TransactionCallbacks.afterCommit(() -> counters.remove(prodNum));
+        System.out.println("✓ 庫存已設定：產品 " + prodNum + " → " + (stock == null ? "不追蹤" : stock));
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reserved", reserved.sum());
+        result.put("rejectedInMemory", rejectedInMemory.sum());
+        result.put("rejectedByDatabase", rejectedByDatabase.sum());
+        result.put("released", released.sum());
+        Map<Long, Integer> available = new TreeMap<>();
+        counters.forEach((prodNum, counter) -> {
+            if (counter.isTracked()) {
+                available.put(prodNum, counter.available.get());
+            }
+        });
+        result.put("counters", available);
+        Map<Long, Object> flashSaleStats = new TreeMap<>();
+        flashSales.forEach((prodNum, flashSale) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("available", flashSale.stock.available());
+            stats.put("shards", flashSale.stock.getShards());
+            stats.put("soldOut", flashSale.stock.isSoldOut());
+            stats.put("inFlight", flashSale.inFlight.get());
+            flashSaleStats.put(prodNum, stats);
+        });
+        result.put("flashSales", flashSaleStats);
+        result.put("pendingOrders", pendingOrders.size());
+        result.put("reconciledOrders", reconciledOrders.sum());
+        result.put("reconcileBatches", reconcileBatches.sum());
+        return result;
+    }
+
+    /**
+     * 由限時搶購的分片扣除（交易回滾時歸還）
+     *
+     * 扣除前先登記為進行中，交易結束（提交或回滾）後才取消登記，endFlashSale() 會等待這些結帳完成
+     *
+     * @return 扣除結果；搶購已結束時回傳 null（改由資料庫扣除）
+     */
+    private Reservation reserveFlashSale(Long prodNum, FlashSale flashSale, int quantity) {
+        flashSale.inFlight.incrementAndGet();
+        // 登記後再確認搶購仍在進行：endFlashSale() 移除後才登記的不由分片扣除
+        if (flashSales.get(prodNum) != flashSale) {
+            flashSale.inFlight.decrementAndGet();
+            return null;
+        }
+        if (!flashSale.stock.tryAcquire(quantity)) {
+            flashSale.inFlight.decrementAndGet();
+            rejectedInMemory.increment();
+            return Reservation.REJECTED;
+        }
+        reserved.increment();
+        TransactionCallbacks.afterRollback(() -> {
+            flashSale.stock.release(quantity);
+            flashSale.inFlight.decrementAndGet();
+        });
+        TransactionCallbacks.afterCommit(flashSale.inFlight::decrementAndGet);
+        return Reservation.PENDING;
+    }
+
+    //等待由分片扣除、尚未提交的結帳完成，逾時則放棄結束搶購（交易回滾後搶購繼續）
+    private void awaitInFlight(Long prodNum, FlashSale flashSale) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(END_WAIT_MILLIS);
+        while (flashSale.inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new RuntimeException("產品 " + prodNum + " 仍有結帳進行中，請稍後再結束限時搶購");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("結束限時搶購已中斷");
+            }
+        }
+    }
+
+    /**
+     * 將訂單的庫存扣除寫入資料庫
+     *
+     * 鎖定仍標記 stock_pending 的訂單（已對帳或已取消的略過），將標記的項目依產品加總後扣除庫存並清除標記，
+     * 全部在同一個交易中完成：交易失敗時什麼都沒有改變，下次重試不會重複扣除
+     *
+     * @return 寫入的訂單數
+     */
+    private int reconcile(Iterable<Long> orderIds) {
+        List<Long> ids = new ArrayList<>();
+        orderIds.forEach(ids::add);
+        List<Long> locked = orderDAO.lockStockPending(ids);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        // 依產品編號排序扣除，與結帳以相同順序鎖定資料列
+        // 只扣除限時搶購的項目：一般商品在結帳時已扣除
+        for (Map.Entry<Long, Integer> entry : orderItemDAO.sumPendingQuantityByProduct(locked).entrySet()) {
+            productDAO.increaseStock(entry.getKey(), -entry.getValue());
+        }
+        orderDAO.clearStockPending(locked);
+        reconciledOrders.add(locked.size());
+        reconcileBatches.increment();
+        return locked.size();
+    }
+
+    //放進對帳佇列，佇列已滿時改由下次對帳從資料庫找出
+    private void enqueue(List<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            if (!pendingOrders.offer(orderId)) {
+                sweepNeeded = true;
+            }
+        }
+    }
+
+    /**
+     * 取得產品的計數器，不存在或已過期時從資料庫載入
+     */
+    private StockCounter counter(Long prodNum) {
+        StockCounter counter = counters.get(prodNum);
+        long now = System.nanoTime();
+        if (counter != null && now - counter.loadedAt < counterTtlNanos) {
+            return counter;
+        }
+        StockCounter loaded = new StockCounter(productDAO.findStock(prodNum), now);
+        if (counter == null) {
+            StockCounter existing = counters.putIfAbsent(prodNum, loaded);
+            return existing != null ? existing : loaded;
+        }
+        // 其他執行緒已先重新載入時使用它的計數器
+        return counters.replace(prodNum, counter, loaded) ? loaded : counters.getOrDefault(prodNum, loaded);
+    }
+
+    /**
+     * 進行中的限時搶購
+     */
+    private static final class FlashSale {
+        private final ShardedStockCounter stock;
+        //已由分片扣除、交易尚未結束的結帳數
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        FlashSale(ShardedStockCounter stock) {
+            this.stock = stock;
+        }
+    }
+
+    /**
+     * 記憶體中的庫存計數器
+     */
+    private static final class StockCounter {
+        //null 庫存（不追蹤）時為 null
+        private final AtomicInteger available;
+        private final long loadedAt;
+
+        StockCounter(Integer stock, long loadedAt) {
+            this.available = stock == null ? null : new AtomicInteger(stock);
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isTracked() {
+            return available != null;
+        }
+
+        //以 CAS 扣除，不足時不扣除
+        boolean tryAcquire(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(int quantity) {
+            if (available != null) {
+                available.addAndGet(quantity);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEvent;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderEventBus;
+import com.example.demo.service.OrderEventListener;
+import com.example.demo.util.EventRingBuffer;
+import com.example.demo.util.TransactionCallbacks;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 訂單事件匯流排實作類別
+ *
+ * 實作說明：
+ * 1. 事件放在預先配置的 EventRingBuffer 中（大小由 order.events.bufferSize 設定），
+ *    發布時只取得序號並填入欄位，不建立物件、不使用鎖、不等待監聽器
+ * 2. 每個 OrderEventListener 一個背景執行緒，每次取出所有已發布的事件（最多 order.events.maxBatch 個）批次處理，
+ *    沒有事件時短暫休眠
+ * 3. 最慢的監聽器落後超過緩衝區大小時捨棄新事件（計入 dropped），不影響結帳；
+ *    開始捨棄與恢復發布時各記錄一次
+ * 4. 監聽器拋出例外（包含 Error）時記錄並略過該事件，不影響之後的事件與其他監聽器；
+ *    監聽器的執行緒不會因此結束，否則它的序號停住後緩衝區填滿，之後的事件全部被捨棄
+ */
+@Service
+public class OrderEventBusImpl implements OrderEventBus, InitializingBean, DisposableBean {
+
+    //沒有新事件時的休眠時間
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Autowired(required = false)
+    private List<OrderEventListener> listeners = Collections.emptyList();
+
+    @Autowired
+    private Environment env;
+
+    private EventRingBuffer<OrderEvent> ringBuffer;
+    private int maxBatch;
+    private final List<ListenerWorker> workers = new ArrayList<>();
+    private volatile boolean running = true;
+    //目前是否正在捨棄事件（只在開始與結束捨棄時記錄，避免每個事件都輸出）
+    private final AtomicBoolean dropping = new AtomicBoolean();
+    //開始捨棄時的 dropped 數量
+    private volatile long droppedBefore;
+
+    @Override
+    public void afterPropertiesSet() {
+        ringBuffer = new EventRingBuffer<>(env.getProperty("order.events.bufferSize", Integer.class, 4096), OrderEvent::new);
+        maxBatch = env.getProperty("order.events.maxBatch", Integer.class, 256);
+        // 先註冊所有消費者再啟動執行緒，之後發布的事件每個監聽器都會收到
+        for (OrderEventListener listener : listeners) {
+            workers.add(new ListenerWorker(listener));
+        }
+        for (ListenerWorker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        for (ListenerWorker worker : workers) {
+            worker.thread.interrupt();
+        }
+    }
+
+    @Override
+    public void publishAfterCommit(OrderEvent.Type type, Order order, OrderStatus previousStatus) {
+        TransactionCallbacks.afterCommit(() -> publish(type, order, previousStatus));
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bufferSize", ringBuffer.getSize());
+        result.put("published", ringBuffer.getCursor() + 1);
+        result.put("dropped", ringBuffer.getDropped());
+        List<Map<String, Object>> consumers = new ArrayList<>();
+        for (ListenerWorker worker : workers) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", worker.consumer.getName());
+            stats.put("processed", worker.processed.get());
+            stats.put("batches", worker.batches.get());
+            stats.put("errors", worker.errors.get());
+            stats.put("lag", ringBuffer.lag(worker.consumer));
+            consumers.add(stats);
+        }
+        result.put("consumers", consumers);
+        return result;
+    }
+
+    //填入環形緩衝區的下一個位置（緩衝區已滿時捨棄）
+    private void publish(OrderEvent.Type type, Order order, OrderStatus previousStatus) {
+        long sequence = ringBuffer.tryClaim();
+        if (sequence < 0) {
+            if (dropping.compareAndSet(false, true)) {
+                droppedBefore = ringBuffer.getDropped() - 1;
+                System.out.println("❌ 訂單事件緩衝區已滿，開始捨棄事件（最慢的監聽器：" + slowestListener() + "）");
+            }
+            return;
+        }
+        if (dropping.get() && dropping.compareAndSet(true, false)) {
+            System.out.println("✓ 訂單事件恢復發布，共捨棄 " + (ringBuffer.getDropped() - droppedBefore) + " 個事件");
+        }
+        try {
+            ringBuffer.get(sequence).set(type, order, previousStatus, System.currentTimeMillis());
+        } finally {
+            // 一定要標記已發布，否則之後的事件都會卡在這個位置
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    //落後最多的監聽器名稱與落後的事件數
+    private String slowestListener() {
+        ListenerWorker slowest = null;
+        for (ListenerWorker worker : workers) {
+            if (slowest == null || ringBuffer.lag(worker.consumer) > ringBuffer.lag(slowest.consumer)) {
+                slowest = worker;
+            }
+        }
+        return slowest == null ? "無" : slowest.consumer.getName() + "，落後 " + ringBuffer.lag(slowest.consumer) + " 個";
+    }
+
+    /**
+     * 單一監聽器的背景執行緒
+     */
+    private final class ListenerWorker implements EventRingBuffer.Handler<OrderEvent> {
+        private final OrderEventListener listener;
+        private final EventRingBuffer.Consumer consumer;
+        private final Thread thread;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        ListenerWorker(OrderEventListener listener) {
+            this.listener = listener;
+            this.consumer = ringBuffer.addConsumer(listener.getClass().getSimpleName());
+            this.thread = new Thread(this::run, "order-events-" + consumer.getName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+            try {
+                listener.onOrderEvent(event, endOfBatch);
+            } catch (Throwable e) {
+                // 包含 Error：執行緒結束的話這個監聽器的序號就停住了
+                errors.incrementAndGet();
+                System.out.println("❌ 訂單事件處理失敗（" + consumer.getName() + "）：" + event + "，" + e);
+            }
+        }
+
+        private void run() {
+            while (running) {
+                int count = ringBuffer.poll(consumer, this, maxBatch);
+                if (count > 0) {
+                    processed.addAndGet(count);
+                    batches.incrementAndGet();
+                } else {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        }
+    }
+}
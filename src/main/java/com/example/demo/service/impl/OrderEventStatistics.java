@@ -0,0 +1,65 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.OrderEvent;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderEventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 訂單事件統計（管理員儀表板使用）
+ *
+ * 記錄啟動後建立、取消的訂單數與金額，以及改為各狀態的次數
+ * 只在事件執行緒中累加，每批結束時才更新對外的快照，查詢時不需要鎖
+ */
+@Component
+public class OrderEventStatistics implements OrderEventListener {
+
+    // ===== 只由事件執行緒存取 =====
+    private long created;
+    private long cancelled;
+    private BigDecimal createdAmount = BigDecimal.ZERO;
+    private BigDecimal cancelledAmount = BigDecimal.ZERO;
+    private final Map<OrderStatus, Long> statusChanges = new EnumMap<>(OrderStatus.class);
+
+    //每批結束時更新
+    private volatile Map<String, Object> snapshot = new LinkedHashMap<>();
+
+    @Override
+    public void onOrderEvent(OrderEvent event, boolean endOfBatch) {
+        BigDecimal amount = event.getTotalAmount() != null ? event.getTotalAmount() : BigDecimal.ZERO;
+        switch (event.getType()) {
+            case ORDER_CREATED:
+                created++;
+                createdAmount = createdAmount.add(amount);
+                break;
+            case ORDER_CANCELLED:
+                cancelled++;
+                cancelledAmount = cancelledAmount.add(amount);
+                break;
+            default:
+                statusChanges.merge(event.getStatus(), 1L, Long::sum);
+                break;
+        }
+        if (endOfBatch) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("created", created);
+            result.put("createdAmount", createdAmount);
+            result.put("cancelled", cancelled);
+            result.put("cancelledAmount", cancelledAmount);
+            result.put("statusChanges", new EnumMap<>(statusChanges));
+            snapshot = result;
+        }
+    }
+
+    /**
+     * 取得統計快照（最多落後一批事件）
+     */
+    public Map<String, Object> snapshot() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Order;
+import com.example.demo.service.OrderService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 結帳批次寫入（group commit）
+ *
+ * 功能說明：
+ * 1. 結帳請求放入有上限的佇列，由單一寫入執行緒取出，最多 order.pipeline.batchSize 筆
+ *    或等待 order.pipeline.lingerMillis 毫秒後，在同一個交易中建立並提交（一次 commit / fsync）
+ * 2. 每個請求回傳 CompletableFuture<Order>，交易提交後才完成
+ * 3. 佇列已滿時呼叫端最多等待 order.pipeline.offerTimeoutMillis 毫秒，仍然滿時拒絕結帳；
+ *    呼叫端等待結果最多 order.pipeline.timeoutMillis 毫秒（getTimeoutMillis()）
+ * 4. 批次中某筆訂單失敗（例如庫存不足）時整批回滾：失敗的那筆單獨重新執行並回傳它自己的結果，
+ *    其餘的再以一批重試；重試 MAX_BATCH_ATTEMPTS 次仍失敗（或提交時才失敗）時全部改為逐筆執行
+ *
+ * 每筆訂單仍呼叫 OrderService.createOrderFromCart()（加入批次的交易），扣庫存、限時搶購對帳、
+ * 清空購物車與交易提交後的處理都和逐筆結帳相同；交易回滾時已扣除的記憶體庫存一併還原
+ *
+ * order.pipeline.enabled=false（預設）時 submit() 直接在呼叫端的執行緒建立訂單
+ */
+@Component
+public class OrderPlacementPipeline implements InitializingBean, DisposableBean {
+
+    //批次失敗時剔除失敗的訂單重試的次數，超過後逐筆執行
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Environment env;
+
+    private boolean enabled;
+    private int batchSize;
+    private long lingerMillis;
+    private long offerTimeoutMillis;
+    private long timeoutMillis;
+    private BlockingQueue<OrderRequest> queue;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running = true;
+    private Thread writer;
+
+    // ===== 統計 =====
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedOrders = new AtomicLong();
+    private final AtomicLong singleOrders = new AtomicLong();
+    private final AtomicLong rolledBackBatches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int largestBatch;
+
+    @Override
+    public void afterPropertiesSet() {
+        enabled = env.getProperty("order.pipeline.enabled", Boolean.class, false);
+        batchSize = env.getProperty("order.pipeline.batchSize", Integer.class, 32);
+        lingerMillis = env.getProperty("order.pipeline.lingerMillis", Long.class, 5L);
+        offerTimeoutMillis = env.getProperty("order.pipeline.offerTimeoutMillis", Long.class, 2000L);
+        timeoutMillis = env.getProperty("order.pipeline.timeoutMillis", Long.class, 30000L);
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(env.getProperty("order.pipeline.queueSize", Integer.class, 1000));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer = new Thread(this::run, "order-writer");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("✓ 結帳批次寫入已啟用（每批最多 " + batchSize + " 筆，等待 " + lingerMillis + " 毫秒）");
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    /**
+     * 送出結帳請求（參數同 OrderService.createOrderFromCart）
+     *
+     * @return 訂單建立並提交後完成；失敗時以 createOrderFromCart 拋出的例外完成
+     */
+    public CompletableFuture<Order> submit(Long customerId, String recipientName, String recipientPhone,
+                                           String shippingAddress, String orderNote) {
+        OrderRequest request = new OrderRequest(customerId, recipientName, recipientPhone, shippingAddress, orderNote);
+        if (!enabled) {
+            runAlone(request);
+            return request.result;
+        }
+        try {
+            // 佇列已滿：寫入執行緒跟不上，讓呼叫端等待，逾時就拒絕（避免請求無限堆積）
+            if (!running || !queue.offer(request, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                request.result.completeExceptionally(new RuntimeException("目前結帳人數過多，請稍後再試"));
+            } else if (!running && queue.remove(request)) {
+                // 放入佇列時正在關閉：寫入執行緒可能已經清空過佇列，不會再處理這筆
+                request.result.completeExceptionally(new RuntimeException("系統關閉中，請稍後再試"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.result.completeExceptionally(new RuntimeException("結帳已中斷，請重新送出"));
+        }
+        return request.result;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 呼叫端等待結果的最長時間（毫秒），逾時時訂單可能仍在寫入
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 取得統計快照（批次數、平均每批筆數、回滾次數、佇列長度等）
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        long batched = batchedOrders.get();
+        result.put("enabled", enabled);
+        result.put("batchSize", batchSize);
+        result.put("lingerMillis", lingerMillis);
+        result.put("queued", queue != null ? queue.size() : 0);
+        result.put("batches", batchCount);
+        result.put("batchedOrders", batched);
+        result.put("averageBatchSize", batchCount > 0 ? (double) batched / batchCount : 0.0);
+        result.put("largestBatch", largestBatch);
+        result.put("rolledBackBatches", rolledBackBatches.get());
+        result.put("singleOrders", singleOrders.get());
+        result.put("rejected", rejected.get());
+        return result;
+    }
+
+    private void run() {
+        List<OrderRequest> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                // 等待同一批的其他請求，最多 lingerMillis 毫秒
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    OrderRequest next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                // 關閉中：已取出但尚未寫入的請求直接失敗
+                fail(batch, new RuntimeException("系統關閉中，請稍後再試"));
+                break;
+            } catch (Throwable e) {
+                // 任何錯誤都不能讓唯一的寫入執行緒結束，否則之後的結帳全部等不到結果
+                System.out.println("❌ 結帳批次寫入失敗：" + e.getMessage());
+                fail(batch, new RuntimeException("建立訂單失敗，請稍後再試", e));
+            } finally {
+                batch.clear();
+            }
+        }
+        // 關閉時尚未處理的請求直接失敗（沒有寫入任何資料，客戶可重新送出）
+        List<OrderRequest> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        fail(remaining, new RuntimeException("系統關閉中，請稍後再試"));
+    }
+
+    //在同一個交易中建立整批訂單；失敗時剔除失敗的訂單重試
+    private void commit(List<OrderRequest> batch) {
+        List<OrderRequest> pending = new ArrayList<>(batch);
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS && pending.size() > 1; attempt++) {
+            int[] current = {-1};
+            try {
+                List<Order> orders = transactionTemplate.execute(status -> {
+                    List<Order> created = new ArrayList<>(pending.size());
+                    for (int i = 0; i < pending.size(); i++) {
+                        current[0] = i;
+                        created.add(pending.get(i).create(orderService));
+                    }
+                    current[0] = -1;
+                    return created;
+                });
+                batches.incrementAndGet();
+                batchedOrders.addAndGet(pending.size());
+                largestBatch = Math.max(largestBatch, pending.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    pending.get(i).result.complete(orders.get(i));
+                }
+                return;
+            } catch (RuntimeException e) {
+                rolledBackBatches.incrementAndGet();
+                if (current[0] < 0) {
+                    // 提交時才失敗，不知道是哪一筆造成的
+                    break;
+                }
+                runAlone(pending.remove(current[0]));
+            }
+        }
+        for (OrderRequest request : pending) {
+            runAlone(request);
+        }
+    }
+
+    //單獨建立一筆訂單（自己的交易）
+    private void runAlone(OrderRequest request) {
+        singleOrders.incrementAndGet();
+        try {
+            request.result.complete(request.create(orderService));
+        } catch (RuntimeException e) {
+            request.result.completeExceptionally(e);
+        } catch (Error e) {
+            request.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static void fail(List<OrderRequest> requests, RuntimeException e) {
+        for (OrderRequest request : requests) {
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class OrderRequest {
+        private final Long customerId;
+        private final String recipientName;
+        private final String recipientPhone;
+        private final String shippingAddress;
+        private final String orderNote;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+
+        OrderRequest(Long customerId, String recipientName, String recipientPhone,
+                     String shippingAddress, String orderNote) {
+            this.customerId = customerId;
+            this.recipientName = recipientName;
+            this.recipientPhone = recipientPhone;
+            this.shippingAddress = shippingAddress;
+            this.orderNote = orderNote;
+        }
+
+        Order create(OrderService orderService) {
+            return orderService.createOrderFromCart(customerId, recipientName, recipientPhone,
+                    shippingAddress, orderNote);
+        }
+    }
+}
@@ -4,15 +4,23 @@ package com.example.demo.service.impl;
 // 引入需要的類別
 import com.example.demo.dao.CustomerDAO;  // 客戶 DAO
 import com.example.demo.dao.OrderDAO;  // 訂單 DAO
+import com.example.demo.dao.impl.EntityCountCache;  // 筆數快取
 import com.example.demo.model.*;  // 引入 model 套件的所有類別
 import com.example.demo.service.CartService;  // 購物車 Service
+import com.example.demo.service.InventoryService;  // 庫存 Service
+import com.example.demo.service.OrderEventBus;  // 訂單事件匯流排
+import com.example.demo.service.OrderNumberGenerator;  // 訂單編號產生器
 import com.example.demo.service.OrderService;  // 訂單 Service 介面
+import com.example.demo.service.ProductAutocompleteService;  // 產品自動完成 Service
 import org.springframework.beans.factory.annotation.Autowired;  // Spring 自動注入註解
 import org.springframework.stereotype.Service;  // Spring Service 註解
 import org.springframework.transaction.annotation.Transactional;  // Spring 事務註解
 import java.util.Date;  // Date 類別
+import java.util.HashSet;  // HashSet 類別
 import java.util.List;  // List 介面
-import java.util.stream.Collectors;  // Stream API 的 Collectors 工具
+import java.util.Map;  // Map 介面
+import java.util.Set;  // Set 介面
+import java.util.TreeMap;  // TreeMap 類別（依產品編號排序）
 
 /**
  * 訂單 Service 實作類別
@@ -25,6 +33,9 @@ import java.util.stream.Collectors;  // Stream API 的 Collectors 工具
 // 例如：建立訂單時，如果清空購物車失敗，訂單也不會被建立
 public class OrderServiceImpl implements OrderService {  // 實作 OrderService 介面
     
+    // 管理員搜尋訂單時最多回傳的筆數
+    private static final int SEARCH_RESULT_LIMIT = 200;
+    
     // ========== 依賴注入 ==========
     // 使用 @Autowired 讓 Spring 自動注入需要的物件
     
@@ -37,6 +48,21 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
     @Autowired  // 自動注入購物車 Service
     private CartService cartService;
     
+    @Autowired  // 自動注入訂單編號產生器
+    private OrderNumberGenerator orderNumberGenerator;
+    
+    @Autowired  // 自動注入產品自動完成 Service（依銷量排序提示）
+    private ProductAutocompleteService productAutocompleteService;
+    
+    @Autowired  // 自動注入筆數快取（儀表板統計使用）
+    private EntityCountCache entityCountCache;
+    
+    @Autowired  // 自動注入庫存 Service（結帳扣庫存、取消歸還）
+    private InventoryService inventoryService;
+    
+    @Autowired  // 自動注入訂單事件匯流排（交易提交後通知監聽器）
+    private OrderEventBus orderEventBus;
+    
     // ========== 實作 Service 方法 ==========
     
     /**
@@ -81,6 +107,9 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
         // 參數依序為：客戶、收貨人姓名、收貨人電話、收貨地址
         Order order = new Order(customer, recipientName, recipientPhone, shippingAddress);
         
+        // 產生訂單編號（不需查詢資料庫，多個節點同時結帳也不會重複）
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+        
         // 設定訂單備註
         order.setOrderNote(orderNote);
         
@@ -99,22 +128,55 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
             order.addOrderItem(orderItem);
         }
         
-        // ===== 步驟5：計算訂單總金額 =====
+        // ===== 步驟5：扣除庫存 =====
+        // 同一產品合併數量，並依產品編號排序：同時結帳的訂單以相同順序鎖定產品資料列，不會發生死結
+        // 任一產品庫存不足時拋出例外，交易回滾，已扣除的庫存一併還原
+        Map<Long, Integer> quantities = quantitiesByProduct(order);
+        Set<Long> pendingProducts = new HashSet<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            InventoryService.Reservation reservation = inventoryService.reserve(entry.getKey(), entry.getValue());
+            if (reservation == InventoryService.Reservation.REJECTED) {
+                throw new RuntimeException("庫存不足：" + productName(order, entry.getKey()) + "，請調整購物車數量");
+            }
+            // 限時搶購商品只在記憶體中扣除，交易提交後由背景對帳寫入資料庫
+            if (reservation == InventoryService.Reservation.PENDING) {
+                pendingProducts.add(entry.getKey());
+            }
+        }
+        // 逐項標記：同一張訂單中的一般商品已扣除資料庫庫存，對帳與取消時不能再當成搶購商品處理
+        for (OrderItem item : order.getOrderItems()) {
+            item.setStockPending(pendingProducts.contains(item.getProduct().getProdNum()));
+        }
+        boolean stockPending = !pendingProducts.isEmpty();
+        order.setStockReserved(true);
+        order.setStockPending(stockPending);
+        
+        // ===== 步驟6：計算訂單總金額 =====
         // 呼叫 Order 類別的 calculateTotalAmount() 方法
         // 此方法會遍歷所有訂單項目，累加小計得到總金額
         order.calculateTotalAmount();
         
-        // ===== 步驟6：儲存訂單到資料庫 =====
+        // ===== 步驟7：儲存訂單到資料庫 =====
         // 使用 orderDAO 儲存訂單
         // 由於設定了 cascade，訂單項目也會一起儲存
         orderDAO.save(order);
+        // 限時搶購：交易提交後交給背景對帳（當機時由啟動時的復原依 stock_pending 標記補扣）
+        if (stockPending) {
+            inventoryService.schedulePending(order.getOrderId());
+        }
         
-        // ===== 步驟7：清空購物車 =====
+        // ===== 步驟8：清空購物車 =====
         // 訂單建立成功後，清空客戶的購物車
         // 避免重複下訂
         cartService.clearCart(customerId);
         
-        // ===== 步驟8：回傳建立的訂單 =====
+        // ===== 步驟9：更新自動完成的產品銷量（交易提交後才生效）=====
+        productAutocompleteService.onProductsSold(quantities);
+        
+        // 交易提交後發布「訂單建立」事件
+        orderEventBus.publishAfterCommit(OrderEvent.Type.ORDER_CREATED, order, null);
+        
+        // ===== 步驟10：回傳建立的訂單 =====
         return order;
     }
     
@@ -163,10 +225,11 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
      * @return 所有訂單的 List
      */
     @Override
+    @Transactional(readOnly = true)  // 唯讀事務
     public List<Order> getAllOrders() {
-        // 直接呼叫 orderDAO 的 findAll() 方法
-        // 回傳所有訂單的 List
-        return orderDAO.findAll();
+        // 一併載入客戶與訂單項目（管理員訂單列表會顯示客戶名稱與商品數）
+        // 避免畫面逐筆載入造成 N+1 查詢
+        return orderDAO.findAllWithDetails();
     }
     
     /**
@@ -184,8 +247,8 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
             throw new RuntimeException("找不到客戶，ID: " + customerId);
         }
         
-        // 使用 orderDAO 查詢該客戶的所有訂單
-        return orderDAO.findByCustomer(customer);
+        // 使用 orderDAO 查詢該客戶的所有訂單（一併載入訂單項目，「我的訂單」頁面會顯示商品明細）
+        return orderDAO.findByCustomerWithDetails(customer);
     }
     
     /**
@@ -195,8 +258,8 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
      */
     @Override
     public List<Order> getOrdersByStatus(OrderStatus status) {
-        // 直接呼叫 orderDAO 的 findByStatus() 方法
-        return orderDAO.findByStatus(status);
+        // 一併載入客戶與訂單項目（管理員訂單列表的狀態篩選）
+        return orderDAO.findByStatusWithDetails(status);
     }
     
     /**
@@ -230,12 +293,13 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
     
     /**
      * 搜尋訂單
-     * 根據訂單編號或客戶名稱搜尋訂單
+     * 根據訂單編號、客戶名稱或收件人名稱的開頭搜尋訂單
      * 管理員後台的搜尋功能
      * @param keyword 搜尋關鍵字（訂單編號或客戶名稱）
-     * @return 符合搜尋條件的訂單 List
+     * @return 符合搜尋條件的訂單 List（最新的在前，最多 SEARCH_RESULT_LIMIT 筆）
      */
     @Override
+    @Transactional(readOnly = true)  // 唯讀事務
     public List<Order> searchOrders(String keyword) {
         System.out.println("=== 搜尋訂單 ===");
         System.out.println("搜尋關鍵字: " + keyword);
@@ -246,24 +310,9 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
             return getAllOrders();
         }
         
-        // 取得所有訂單
-        List<Order> allOrders = getAllOrders();
-        
-        // 將關鍵字轉為小寫（不區分大小寫搜尋）
-        String lowerKeyword = keyword.toLowerCase();
-        
-        // 使用 Stream API 篩選訂單
-        // 篩選條件：訂單編號、客戶名稱、或收件人名稱包含關鍵字
-        List<Order> filteredOrders = allOrders.stream()
-            .filter(order -> 
-                // 訂單編號包含關鍵字（不區分大小寫）
-                order.getOrderNumber().toLowerCase().contains(lowerKeyword) ||
-                // 或客戶名稱包含關鍵字（不區分大小寫）
-                order.getCustomer().getCustName().toLowerCase().contains(lowerKeyword) ||
-                // 或收件人名稱包含關鍵字（不區分大小寫）
-                order.getRecipientName().toLowerCase().contains(lowerKeyword)
-            )
-            .collect(Collectors.toList());  // 收集結果為 List
+        // 由資料庫以索引進行前綴搜尋（訂單編號、客戶名稱、收件人名稱）
+        // 不需要載入所有訂單後再於 Java 中逐筆比對
+        List<Order> filteredOrders = orderDAO.searchByPrefix(keyword.trim(), SEARCH_RESULT_LIMIT);
         
         System.out.println("✓ 找到 " + filteredOrders.size() + " 筆符合的訂單");
         
@@ -277,25 +326,14 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
      * @return 最近的訂單 List
      */
     @Override
+    @Transactional(readOnly = true)  // 唯讀事務
     public List<Order> getRecentOrders(int limit) {
         System.out.println("=== 取得最近的訂單 ===");
         System.out.println("數量限制: " + limit);
         
-        // 取得所有訂單
-        List<Order> allOrders = getAllOrders();
-        
-        // 按照建立時間排序（新的在前）
-        // 使用 sort() 方法和 Lambda 表達式
-        allOrders.sort((order1, order2) -> {
-            // 比較兩個訂單的建立時間
-            // order2 在前面，表示降序排列（新的在前）
-            return order2.getCreatedDate().compareTo(order1.getCreatedDate());
-        });
-        
-        // 使用 Stream API 取前 limit 筆
-        List<Order> recentOrders = allOrders.stream()
-            .limit(limit)  // 限制數量
-            .collect(Collectors.toList());  // 收集為 List
+        // 由資料庫排序並限制筆數（ORDER BY created_date DESC LIMIT ?）
+        // 不需要載入所有訂單再於 Java 中排序
+        List<Order> recentOrders = orderDAO.findRecent(limit);
         
         System.out.println("✓ 回傳 " + recentOrders.size() + " 筆最近的訂單");
         
@@ -308,12 +346,11 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
      * @return 訂單總數
      */
     @Override
+    @Transactional(readOnly = true)  // 唯讀事務
     public long getTotalOrderCount() {
-        // 取得所有訂單的數量
-        List<Order> allOrders = getAllOrders();
-        
-        // 回傳訂單總數
-        return allOrders.size();
+        // 使用 COUNT(*) 查詢，不載入任何訂單與客戶
+        // 開啟筆數快取（count.cache.enabled=true）時直接回傳記憶體中的值
+        return entityCountCache.count(Order.class, orderDAO::count);
     }
     
     /**
@@ -327,8 +364,8 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
         System.out.println("訂單 ID: " + orderId);
         System.out.println("新狀態: " + status);
         
-        // 先查詢訂單
-        Order order = getOrderById(orderId);
+        // 先查詢訂單並鎖定（同時取消或修改同一張訂單時依序執行，庫存只歸還一次）
+        Order order = getOrderForUpdate(orderId);
         
         try {
             // 將字串轉換為 OrderStatus 枚舉
@@ -337,6 +374,19 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
             System.out.println("原始狀態: " + order.getOrderStatus());
             System.out.println("新狀態: " + newStatus);
             
+            OrderStatus previousStatus = order.getOrderStatus();
+            
+            // 已取消的訂單已歸還庫存，不能再改回其他狀態（否則會出貨已歸還的庫存）
+            if (previousStatus == OrderStatus.CANCELLED && newStatus != OrderStatus.CANCELLED) {
+                System.out.println("❌ 已取消的訂單不能改為其他狀態");
+                throw new RuntimeException("已取消的訂單不能改為其他狀態，請重新下單");
+            }
+            
+            // 改為「已取消」時歸還庫存
+            if (newStatus == OrderStatus.CANCELLED && previousStatus != OrderStatus.CANCELLED) {
+                releaseStock(order);
+            }
+            
             // 更新訂單狀態
             order.setOrderStatus(newStatus);
             
@@ -346,6 +396,13 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
             // 儲存訂單
             orderDAO.save(order);
             
+            // 狀態有改變時，交易提交後發布事件
+            if (newStatus != previousStatus) {
+                orderEventBus.publishAfterCommit(newStatus == OrderStatus.CANCELLED
+                        ? OrderEvent.Type.ORDER_CANCELLED : OrderEvent.Type.ORDER_STATUS_CHANGED,
+                        order, previousStatus);
+            }
+            
             System.out.println("✓ 訂單狀態更新成功");
             
         } catch (IllegalArgumentException e) {
@@ -363,8 +420,8 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
         System.out.println("=== 取消訂單 ===");
         System.out.println("訂單 ID: " + orderId);
         
-        // 先查詢訂單
-        Order order = getOrderById(orderId);
+        // 先查詢訂單並鎖定（同時取消或修改同一張訂單時依序執行，庫存只歸還一次）
+        Order order = getOrderForUpdate(orderId);
         
         // ===== 檢查訂單是否可以取消 =====
         
@@ -384,6 +441,11 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
         
         // ===== 執行取消操作 =====
         
+        OrderStatus previousStatus = order.getOrderStatus();
+        
+        // 歸還庫存
+        releaseStock(order);
+        
         // 更新訂單狀態為「已取消」
         order.setOrderStatus(OrderStatus.CANCELLED);
         
@@ -393,6 +455,74 @@ public class OrderServiceImpl implements OrderService {  // 實作 OrderService
         // 儲存訂單
         orderDAO.save(order);
         
+        // 交易提交後發布「訂單取消」事件
+        orderEventBus.publishAfterCommit(OrderEvent.Type.ORDER_CANCELLED, order, previousStatus);
+        
         System.out.println("✓ 訂單已取消");
     }
-}
\ No newline at end of file
+    
+    // ========== 私有輔助方法 ==========
+    
+    /**
+     * 查詢訂單並鎖定資料列到交易結束
+     * @param orderId 訂單 ID
+     * @return 訂單物件
+     */
+    private Order getOrderForUpdate(Long orderId) {
+        Order order = orderDAO.findByIdForUpdate(orderId);
+        if (order == null) {
+            throw new RuntimeException("找不到訂單，ID: " + orderId);
+        }
+        return order;
+    }
+    
+    /**
+     * 歸還訂單扣除的庫存（建立時沒有扣庫存的舊訂單不歸還）
+     * @param order 訂單
+     */
+    private void releaseStock(Order order) {
+        if (!order.isStockReserved()) {
+            return;
+        }
+        // 限時搶購的訂單尚未對帳時，標記 stock_pending 的項目（搶購商品）資料庫庫存還沒扣除
+        // （取消後也不會再扣除），只歸還記憶體中的數量；一般商品結帳時已扣除，照常歸還資料庫庫存
+        boolean pendingCancelled = order.isStockPending() && inventoryService.cancelPending(order.getOrderId());
+        Set<Long> pendingProducts = new HashSet<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.isStockPending()) {
+                pendingProducts.add(item.getProduct().getProdNum());
+            }
+        }
+        for (Map.Entry<Long, Integer> entry : quantitiesByProduct(order).entrySet()) {
+            boolean applied = !pendingCancelled || !pendingProducts.contains(entry.getKey());
+            inventoryService.release(entry.getKey(), entry.getValue(), applied);
+        }
+        order.setStockReserved(false);
+        System.out.println("✓ 已歸還庫存");
+    }
+    
+    /**
+     * 合併訂單中各產品的數量
+     * @param order 訂單
+     * @return 產品編號 → 數量（依產品編號排序）
+     */
+    private static Map<Long, Integer> quantitiesByProduct(Order order) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            quantities.merge(item.getProduct().getProdNum(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
+    /**
+     * 取得訂單中產品的名稱（錯誤訊息使用）
+     */
+    private static String productName(Order order, Long prodNum) {
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getProduct().getProdNum().equals(prodNum)) {
+                return item.getProduct().getProdName();
+            }
+        }
+        return String.valueOf(prodNum);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.OrderItemDAO;
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.Product;
+import com.example.demo.service.ProductAutocompleteService;
+import com.example.demo.util.SuggestionTrie;
+import com.example.demo.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 產品名稱自動完成 Service 實作類別
+ * 
+ * 實作說明：
+ * 1. 應用程式啟動完成（ContextRefreshedEvent）時，以所有產品與各產品銷量建立字首樹
+ * 2. 每個字首節點預先保留銷量最高的前 MAX_SUGGESTIONS 筆，查詢只需走完字首（不查資料庫）
+ * 3. 產品新增、修改、刪除與訂單建立後，在交易提交後更新字首樹
+ * 4. 重新建立時先建好新的字首樹再替換，建立期間查詢仍使用舊的
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductAutocompleteServiceImpl implements ProductAutocompleteService {
+
+    //每個字首最多保留的提示筆數
+    private static final int MAX_SUGGESTIONS = 10;
+
+    @Autowired
+    private ProductDAO productDAO;
+    
+    @Autowired
+    private OrderItemDAO orderItemDAO;
+    
+    private volatile SuggestionTrie trie = new SuggestionTrie(MAX_SUGGESTIONS);
+    
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+    
+    @Override
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            Map<Long, Long> sales = orderItemDAO.sumQuantityByProduct();
+            SuggestionTrie newTrie = new SuggestionTrie(MAX_SUGGESTIONS);
+            for (Product product : productDAO.findAll()) {
+                newTrie.put(product.getProdNum(), product.getProdName(),
+                        sales.getOrDefault(product.getProdNum(), 0L));
+            }
+            trie = newTrie;
+            System.out.println("✓ 自動完成字首樹已建立：" + newTrie.size() + " 項產品，耗時 "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            // 建立失敗不影響應用程式啟動，自動完成暫時沒有提示
+            System.out.println("❌ 建立自動完成字首樹時發生錯誤：" + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void onProductSaved(Product product) {
+        Long prodNum = product.getProdNum();
+        // 保留目前的銷量，只更新名稱（新產品銷量為 0）
+        TransactionCallbacks.afterCommit(() -> trie.putText(prodNum, product.getProdName()));
+    }
+    
+    @Override
+    public void onProductDeleted(Long prodNum) {
+        TransactionCallbacks.afterCommit(() -> trie.remove(prodNum));
+    }
+    
+    @Override
+    public void onProductsSold(Map<Long, Integer> quantities) {
+        TransactionCallbacks.afterCommit(() -> {
+            SuggestionTrie current = trie;
+            quantities.forEach((prodNum, quantity) -> current.addWeight(prodNum, quantity));
+        });
+    }
+}
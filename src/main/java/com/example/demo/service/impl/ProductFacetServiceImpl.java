@@ -0,0 +1,78 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.ProductTypeFacet;
+import com.example.demo.service.ProductFacetService;
+import com.example.demo.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 產品類型統計 Service 實作類別
+ * 
+ * 實作說明：
+ * 1. 查詢結果存放在 volatile 欄位，多個請求共用同一份不可修改的 List
+ * 2. 產品異動時由 ProductServiceImpl 呼叫 invalidate() 清除，下次查詢時重新載入
+ * 3. 清除動作延後到交易提交後，避免其他請求在提交前重新載入舊資料
+ * 4. 每次清除時遞增版本號，快取記錄載入前讀到的版本號：
+ *    清除前開始、清除後才完成的載入（讀到舊資料）版本號不符，下次查詢時重新載入
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    @Autowired
+    private ProductDAO productDAO;
+    
+    //每次清除時遞增
+    private final AtomicLong generation = new AtomicLong();
+    
+    //快取的類型統計（null 表示尚未載入）
+    private volatile CachedFacets cachedFacets;
+    
+    @Override
+    public List<ProductTypeFacet> getTypeFacets() {
+        CachedFacets cached = cachedFacets;
+        if (cached != null && cached.generation == generation.get()) {
+            return cached.facets;
+        }
+        // 載入前先讀取版本號：載入期間被清除時，存入的快取已過期
+        long loadedGeneration = generation.get();
+        List<ProductTypeFacet> facets = Collections.unmodifiableList(productDAO.findTypeFacets());
+        cachedFacets = new CachedFacets(loadedGeneration, facets);
+        System.out.println("✓ 重新載入產品類型統計：" + facets);
+        return facets;
+    }
+    
+    @Override
+    public List<String> getProductTypes() {
+        return getTypeFacets().stream()
+                .map(ProductTypeFacet::getType)
+                .collect(Collectors.toUnmodifiableList());
+    }
+    
+    @Override
+    public void invalidate() {
+        // 在交易中：等交易提交後再清除
+        TransactionCallbacks.afterCommit(generation::incrementAndGet);
+    }
+    
+    /**
+     * 快取的類型統計與載入時的版本號
+     */
+    private static final class CachedFacets {
+        private final long generation;
+        private final List<ProductTypeFacet> facets;
+        
+        CachedFacets(long generation, List<ProductTypeFacet> facets) {
+            this.generation = generation;
+            this.facets = facets;
+        }
+    }
+}
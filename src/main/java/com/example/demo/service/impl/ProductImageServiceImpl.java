@@ -0,0 +1,113 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Product;
+import com.example.demo.service.ProductImageService;
+import com.example.demo.service.ProductService;
+import com.example.demo.util.ImageVariantGenerator;
+import com.example.demo.util.ProductImageStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 產品圖片 Service 實作類別
+ *
+ * 實作說明：
+ * 1. 縮圖在固定大小的執行緒池中產生，佇列有上限，管理員大量上傳時不會佔用所有 CPU 與記憶體
+ * 2. 產生完成後透過 ProductService 記錄縮圖寬度（產品圖片已被換掉時不記錄）
+ * 3. 執行緒數與佇列大小由 application.properties 的 image.variants.* 設定
+ */
+@Service("productImageService")  // 頁面以 @productImageService 取得縮圖路徑
+public class ProductImageServiceImpl implements ProductImageService, InitializingBean, DisposableBean {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductImageStore productImageStore;
+
+    @Autowired
+    private Environment env;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        int threads = env.getProperty("image.variants.threads", Integer.class, 2);
+        int queueSize = env.getProperty("image.variants.queueSize", Integer.class, 100);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    // 縮圖不急，讓出 CPU 給處理請求的執行緒
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void generateVariants(Long prodNum, String imageUrl) {
+        if (prodNum == null || imageUrl == null || imageUrl.isEmpty()) {
+            return;
+        }
+        Path source = productImageStore.resolve(ProductImageStore.filename(imageUrl));
+        if (source == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    List<Integer> widths = ImageVariantGenerator.generate(source, Product.IMAGE_VARIANT_WIDTHS);
+                    if (widths.isEmpty()) {
+                        System.out.println("○ 無法讀取圖片，不產生縮圖：" + source);
+                        return;
+                    }
+                    String variants = widths.stream().map(String::valueOf).collect(Collectors.joining(","));
+                    productService.updateImageVariants(prodNum, imageUrl, variants);
+                    System.out.println("✓ 縮圖已產生：" + imageUrl + " → " + variants);
+                } catch (Exception e) {
+                    System.out.println("❌ 產生縮圖失敗：" + imageUrl + "，" + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.out.println("○ 縮圖佇列已滿，略過：" + imageUrl);
+        }
+    }
+
+    @Override
+    public void deleteVariants(String imageUrl) {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            return;
+        }
+        Path source = productImageStore.resolve(ProductImageStore.filename(imageUrl));
+        if (source != null) {
+            ImageVariantGenerator.delete(source, Product.IMAGE_VARIANT_WIDTHS);
+        }
+    }
+
+    @Override
+    public String getVariantUrl(String imageUrl, int width) {
+        int slash = imageUrl.lastIndexOf('/');
+        return imageUrl.substring(0, slash + 1)
+                + ImageVariantGenerator.variantFilename(imageUrl.substring(slash + 1), width);
+    }
+}
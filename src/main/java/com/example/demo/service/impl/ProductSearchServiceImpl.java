@@ -0,0 +1,121 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.Product;
+import com.example.demo.service.ProductSearchService;
+import com.example.demo.util.Bm25Index;
+import com.example.demo.util.SearchTokenizer;
+import com.example.demo.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 產品全文搜尋 Service 實作類別
+ * 
+ * 實作說明：
+ * 1. 第一次搜尋時以 productDAO.findAll() 建立索引，之後只做單筆更新
+ * 2. 產品名稱、類型、描述依權重（3 : 2 : 1）累加詞頻，名稱符合的產品排在前面
+ * 3. 更新索引延後到交易提交後，交易回滾時索引不會改變
+ * 4. 建立索引與單筆更新使用同一把鎖：建立期間提交的異動會等建立完成後再套用，不會遺失
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    //各欄位的詞頻權重
+    private static final int NAME_WEIGHT = 3;
+    private static final int TYPE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    @Autowired
+    private ProductDAO productDAO;
+    
+    //倒排索引（null 表示尚未建立）
+    private volatile Bm25Index index;
+    
+    //產品編號 → 產品類型（搜尋時依類型篩選）
+    private final Map<Long, String> productTypes = new ConcurrentHashMap<>();
+    
+    //建立索引與單筆更新共用的鎖
+    private final Object indexLock = new Object();
+    
+    @Override
+    public List<Long> search(String keyword, String type, int limit) {
+        List<String> terms = SearchTokenizer.tokenizeForQuery(keyword);
+        boolean hasType = type != null && !type.trim().isEmpty();
+        return getIndex().search(terms,
+                hasType ? prodNum -> type.equals(productTypes.get(prodNum)) : null,
+                limit);
+    }
+    
+    @Override
+    public void onProductSaved(Product product) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (indexLock) {
+                // 尚未建立索引時不需更新，之後建立時會從資料庫讀到最新資料
+                if (index != null) {
+                    addToIndex(index, product);
+                }
+            }
+        });
+    }
+    
+    @Override
+    public void onProductDeleted(Long prodNum) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (indexLock) {
+                if (index != null) {
+                    index.remove(prodNum);
+                    productTypes.remove(prodNum);
+                }
+            }
+        });
+    }
+    
+    //取得索引，尚未建立時從資料庫載入
+    private Bm25Index getIndex() {
+        Bm25Index current = index;
+        if (current == null) {
+            synchronized (indexLock) {
+                current = index;
+                if (current == null) {
+                    long start = System.currentTimeMillis();
+                    current = new Bm25Index();
+                    for (Product product : productDAO.findAll()) {
+                        addToIndex(current, product);
+                    }
+                    index = current;
+                    System.out.println("✓ 產品搜尋索引已建立：" + current.size() + " 項產品，耗時 "
+                            + (System.currentTimeMillis() - start) + " ms");
+                }
+            }
+        }
+        return current;
+    }
+    
+    //將產品的名稱、類型、描述斷詞後加入索引
+    private void addToIndex(Bm25Index target, Product product) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addTerms(termFrequencies, product.getProdName(), NAME_WEIGHT);
+        addTerms(termFrequencies, product.getProdType(), TYPE_WEIGHT);
+        addTerms(termFrequencies, product.getProdDescription(), DESCRIPTION_WEIGHT);
+        target.put(product.getProdNum(), termFrequencies);
+        if (product.getProdType() != null) {
+            productTypes.put(product.getProdNum(), product.getProdType());
+        } else {
+            productTypes.remove(product.getProdNum());
+        }
+    }
+    
+    private void addTerms(Map<String, Integer> termFrequencies, String text, int weight) {
+        for (String term : SearchTokenizer.tokenizeForIndex(text)) {
+            termFrequencies.merge(term, weight, Integer::sum);
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.dao.ProductDAO;
+import com.example.demo.dao.impl.EntityCountCache;
+import com.example.demo.model.CatalogSnapshot;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductCursor;
+import com.example.demo.model.ProductPage;
+import com.example.demo.service.CatalogSnapshotService;
+import com.example.demo.service.InventoryService;
+import com.example.demo.service.ProductAutocompleteService;
+import com.example.demo.service.ProductFacetService;
+import com.example.demo.service.ProductSearchService;
 import com.example.demo.service.ProductService;
+import com.example.demo.util.PageCache;
+import com.example.demo.util.TransactionCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.Comparator;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +35,27 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductDAO productDAO;
 
+    @Autowired
+    private EntityCountCache entityCountCache;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductAutocompleteService productAutocompleteService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PageCache pageCache;
+
     // ===== 原有的方法實作 =====
     
     @Override
@@ -41,23 +75,65 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public void saveProduct(Product product) {
         productDAO.save(product);
+        productFacetService.invalidate();
+        productSearchService.onProductSaved(product);
+        productAutocompleteService.onProductSaved(product);
+        catalogSnapshotService.onProductSaved(product);
+        invalidatePages(product.getProdNum());
     }
 
     @Override
-    public void updateProduct(Long id, Product updatedProduct) {
+    public void updateProduct(Long id, Product updatedProduct, boolean updateStock) {
         Product existingProduct = productDAO.findById(id);
         if (existingProduct != null) {
+            // 先設定庫存：限時搶購中無法修改時直接拋出例外，其他欄位也不會儲存
+            if (updateStock) {
+                inventoryService.setStock(id, updatedProduct.getStock());
+            }
             existingProduct.setProdName(updatedProduct.getProdName());
             existingProduct.setProdType(updatedProduct.getProdType());
             existingProduct.setProdPrice(updatedProduct.getProdPrice());
             existingProduct.setProdLine(updatedProduct.getProdLine());
+            // 換了圖片時舊的縮圖不能再用，等背景重新產生
+            if (!Objects.equals(existingProduct.getProdImage(), updatedProduct.getProdImage())) {
+                existingProduct.setProdImage(updatedProduct.getProdImage());
+                existingProduct.setImageVariants(null);
+            }
             productDAO.save(existingProduct);
+            productFacetService.invalidate();
+            productSearchService.onProductSaved(existingProduct);
+            productAutocompleteService.onProductSaved(existingProduct);
+            catalogSnapshotService.onProductSaved(existingProduct);
+            invalidatePages(id);
+        }
+    }
+
+    @Override
+    public void updateImageVariants(Long id, String imageUrl, String variants) {
+        // 只更新縮圖欄位（條件式 UPDATE）：整筆儲存會以載入時的值覆蓋管理員同時修改的名稱、價格等欄位
+        Date updatedDate = new Date();
+        if (!productDAO.updateImageVariants(id, imageUrl, variants, updatedDate)) {
+            return;
         }
+        Product product = productDAO.findById(id);
+        if (product != null) {
+            // 快照使用副本：不修改 Session 中的實體，提交時才不會再以整筆 UPDATE 寫回
+            Product updated = new Product(product);
+            updated.setImageVariants(variants);
+            updated.setUpdatedDate(updatedDate);
+            catalogSnapshotService.onProductSaved(updated);
+        }
+        invalidatePages(id);
     }
 
     @Override
     public void deleteProduct(Long id) {
         productDAO.delete(id);
+        productFacetService.invalidate();
+        productSearchService.onProductDeleted(id);
+        productAutocompleteService.onProductDeleted(id);
+        catalogSnapshotService.onProductDeleted(id);
+        invalidatePages(id);
     }
 
     // ===== 搜尋和篩選方法實作 =====
@@ -66,8 +142,9 @@ public class ProductServiceImpl implements ProductService {
      * 搜尋產品（支援關鍵字、類型、排序）
      * 
      * 實作邏輯：
-     * 1. 根據有無關鍵字和類型，呼叫不同的 DAO 方法
-     * 2. 對查詢結果進行排序
+     * 1. 有關鍵字時使用全文搜尋索引取得所有符合的產品編號，結果依相關程度排序，產品由目錄快照取得
+     * 2. 有指定排序方式時，由目錄快照排序整個搜尋結果（不截斷，不查詢資料庫）
+     * 3. 沒有關鍵字時由目錄快照取得（已依類型分組、依排序方式排好）
      * 
      * @param keyword 搜尋關鍵字
      * @param type 產品類型
@@ -81,116 +158,157 @@ public class ProductServiceImpl implements ProductService {
         System.out.println("類型: " + type);
         System.out.println("排序: " + sort);
         
-        List<Product> products;
-        
-        // ===== 根據條件查詢產品 =====
-        
-        // 有關鍵字 + 有類型
-        if (isNotEmpty(keyword) && isNotEmpty(type)) {
-            System.out.println("→ 呼叫 DAO: 關鍵字 + 類型篩選");
-            products = productDAO.searchByKeywordAndType(keyword, type);
-        }
-        // 只有關鍵字
-        else if (isNotEmpty(keyword)) {
-            System.out.println("→ 呼叫 DAO: 關鍵字搜尋");
-            products = productDAO.searchByKeyword(keyword);
-        }
-        // 只有類型
-        else if (isNotEmpty(type)) {
-            System.out.println("→ 呼叫 DAO: 類型篩選");
-            products = productDAO.findByType(type);
-        }
-        // 沒有篩選條件
-        else {
-            System.out.println("→ 呼叫 DAO: 取得所有產品");
-            products = productDAO.findAll();
+        // ===== 沒有關鍵字：由目錄快照取得 =====
+        // 類型篩選與排序皆已預先計算，不查詢資料庫
+        if (!isNotEmpty(keyword)) {
+            System.out.println("→ 目錄快照: " + (isNotEmpty(type) ? "類型篩選" : "所有產品"));
+            return catalogSnapshotService.getSnapshot().list(type, sort);
         }
         
-        System.out.println("✓ DAO 返回 " + products.size() + " 項產品");
+        // ===== 有關鍵字：使用全文搜尋索引 =====
+        // 依相關程度排序，類型條件在索引中篩選
+        System.out.println("→ 全文搜尋索引: 關鍵字" + (isNotEmpty(type) ? " + 類型篩選" : ""));
+        // 索引只回傳產品編號，取得全部符合的結果再排序，不會漏掉相關程度較低的產品
+        List<Long> ids = productSearchService.search(keyword, type, Integer.MAX_VALUE);
         
         // ===== 排序 =====
         if (isNotEmpty(sort)) {
-            products = sortProducts(products, sort);
-            System.out.println("✓ 已依 " + sort + " 排序");
+            List<Product> products = catalogSnapshotService.getSnapshot().sorted(ids, sort);
+            System.out.println("✓ 已依 " + sort + " 排序 " + products.size() + " 項產品");
+            return products;
         }
         
+        // 依相關程度：由目錄快照取得產品（搜尋結果可能很多，不以 IN 查詢資料庫）
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        List<Product> products = ids.stream()
+                .map(snapshot::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        System.out.println("✓ 目錄快照返回 " + products.size() + " 項產品");
         return products;
     }
     
     /**
-     * 取得所有產品並排序
+     * 分頁搜尋產品
+     * 
+     * 實作邏輯：
+     * 1. 解析游標字串（無效的游標視為第一頁）
+     * 2. 有關鍵字時先以全文搜尋索引取得符合的產品編號：
+     *    - 沒有指定排序：由目錄快照取得產品，依相關程度分頁，游標記錄下一頁的起始名次
+     *    - 有指定排序：由目錄快照排序所有符合的產品後分頁（不查詢資料庫）
+     *    沒有關鍵字時由目錄快照分頁（二分搜尋游標位置，不查詢資料庫）
+     * 3. 多查一筆（pageSize + 1），用來判斷是否還有下一頁
+     * 4. 以本頁最後一筆產品建立下一頁游標
      * 
+     * @param keyword 搜尋關鍵字
+     * @param type 產品類型
      * @param sort 排序方式
-     * @return 排序後的產品 List
+     * @param cursor 游標字串
+     * @param pageSize 每頁筆數
+     * @return 本頁產品與下一頁游標
      */
     @Override
-    public List<Product> getAllProductsSorted(String sort) {
-        List<Product> products = productDAO.findAll();
+    @Transactional(readOnly = true)
+    public ProductPage getProductPage(String keyword, String type, String sort, String cursor, int pageSize) {
+        ProductCursor after = ProductCursor.decode(cursor);
+        List<Product> products;
+        int rank = -1;
+        if (isNotEmpty(keyword)) {
+            List<Long> ids = productSearchService.search(keyword, type, Integer.MAX_VALUE);
+            if (ids.isEmpty()) {
+                products = new ArrayList<>();
+            } else if (isNotEmpty(sort)) {
+                products = catalogSnapshotService.getSnapshot().sortedPageAfter(ids, sort, after, pageSize + 1);
+            } else {
+                // 依相關程度：由目錄快照取得產品（已刪除的產品不在快照中，先排除再分頁，每頁筆數才會正確）
+                CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+                List<Product> ranked = ids.stream()
+                        .map(snapshot::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                rank = relevanceStart(ranked, after);
+                products = rank < 0
+                        ? new ArrayList<>()
+                        : ranked.subList(rank, Math.min(rank + pageSize + 1, ranked.size()));
+            }
+        } else {
+            products = catalogSnapshotService.getSnapshot().pageAfter(type, sort, after, pageSize + 1);
+        }
         
-        if (isNotEmpty(sort)) {
-            products = sortProducts(products, sort);
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            Product last = products.get(pageSize - 1);
+            // 依相關程度分頁時，游標記錄下一頁的起始名次
+            nextCursor = (rank >= 0
+                    ? new ProductCursor(String.valueOf(rank + pageSize), last.getProdNum())
+                    : ProductCursor.after(last, sort)).encode();
         }
         
-        return products;
+        return new ProductPage(products, nextCursor);
     }
     
     // ===== 輔助方法 =====
     
     /**
-     * 檢查字串是否不為空
+     * 清除快取的列表頁與該產品的詳細頁（交易提交後才清除）
      * 
-     * @param str 要檢查的字串
-     * @return true 如果字串不為 null 且不為空白
+     * @param prodNum 產品編號
      */
-    private boolean isNotEmpty(String str) {
-        return str != null && !str.trim().isEmpty();
+    private void invalidatePages(Long prodNum) {
+        TransactionCallbacks.afterCommit(() -> pageCache.invalidateProduct(prodNum));
     }
     
     /**
-     * 對產品列表進行排序
+     * 依相關程度分頁：取得本頁的起始名次
      * 
-     * 排序方式：
-     * - price_asc: 價格由低到高
-     * - price_desc: 價格由高到低
-     * - name_asc: 名稱 A-Z
-     * - name_desc: 名稱 Z-A
+     * 游標記錄下一頁的起始名次與上一頁最後一筆產品編號：
+     * 名次前一筆仍是該產品時直接從名次開始；搜尋結果有變動（例如索引已更新）時改為找出該產品的位置；
+     * 該產品已不在搜尋結果中時返回 -1（回傳空白頁，不會從第一頁重複顯示）
      * 
-     * @param products 要排序的產品列表
-     * @param sort 排序方式
-     * @return 排序後的產品列表
+     * @param ranked 依相關程度排序的產品
+     * @param after 上一頁的游標
+     * @return 本頁第一筆的名次；找不到游標中的產品時為 -1
      */
-    private List<Product> sortProducts(List<Product> products, String sort) {
-        
-        // 使用 Java Stream API 進行排序
-        switch (sort) {
-            case "price_asc":
-                // 價格由低到高
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getProdPrice))
-                        .collect(Collectors.toList());
-                
-            case "price_desc":
-                // 價格由高到低
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getProdPrice).reversed())
-                        .collect(Collectors.toList());
-                
-            case "name_asc":
-                // 名稱 A-Z
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getProdName))
-                        .collect(Collectors.toList());
-                
-            case "name_desc":
-                // 名稱 Z-A
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getProdName).reversed())
-                        .collect(Collectors.toList());
-                
-            default:
-                // 不排序，返回原列表
-                return products;
+    private int relevanceStart(List<Product> ranked, ProductCursor after) {
+        if (after == null) {
+            return 0;
+        }
+        Long prodNum = after.getProdNum();
+        int rank = parseRank(after.getSortValue());
+        if (rank > 0 && rank <= ranked.size() && prodNum.equals(ranked.get(rank - 1).getProdNum())) {
+            return rank;
+        }
+        for (int i = 0; i < ranked.size(); i++) {
+            if (prodNum.equals(ranked.get(i).getProdNum())) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 解析游標中的名次（格式錯誤時返回 -1）
+     */
+    private int parseRank(String value) {
+        if (value == null) {
+            return -1;
         }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * 檢查字串是否不為空
+     * 
+     * @param str 要檢查的字串
+     * @return true 如果字串不為 null 且不為空白
+     */
+    private boolean isNotEmpty(String str) {
+        return str != null && !str.trim().isEmpty();
     }
     
     /**
@@ -200,7 +318,21 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     public List<String> getAllProductTypes() {
-        return productDAO.findAllProductTypes();
+        // 由快取的類型統計取得，不需每次執行 SELECT DISTINCT
+        return productFacetService.getProductTypes();
+    }
+    
+    /**
+     * 檢查圖片是否還有其他產品使用
+     * 由目錄快照檢查，不查詢資料庫
+     */
+    @Override
+    public boolean isImageUsedByOthers(String imageUrl, Long prodNum) {
+        if (!isNotEmpty(imageUrl)) {
+            return false;
+        }
+        return catalogSnapshotService.getSnapshot().list(null, null).stream()
+                .anyMatch(p -> imageUrl.equals(p.getProdImage()) && !p.getProdNum().equals(prodNum));
     }
     
     // ===== ⭐ 新增：管理員後台統計方法實作 =====
@@ -214,10 +346,7 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional(readOnly = true)
     public long getTotalProductCount() {
-        // 取得所有產品
-        List<Product> allProducts = getAllProducts();
-        
-        // 回傳產品總數
-        return allProducts.size();
+        // 使用 COUNT(*) 查詢（開啟筆數快取時直接回傳記憶體中的值）
+        return entityCountCache.count(Product.class, productDAO::count);
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.OrderNumberGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake 風格的訂單編號產生器
+ *
+ * 功能說明：
+ * 1. 訂單編號 = 時間戳記（毫秒）+ 節點編號 + 同一毫秒內的流水號，不需要查詢資料庫
+ * 2. 節點編號由 application.properties 的 order.number.node-id 設定（0 ~ 1023），
+ *    每個部署節點必須不同，也可用系統屬性 -Dorder.number.node-id 覆寫
+ * 3. 同一毫秒內最多 4096 個流水號，用完時借用下一毫秒，不會等待
+ * 4. 以 AtomicLong 的 CAS 更新「毫秒 + 流水號」，多執行緒同時結帳不需要加鎖
+ *
+ * 格式：ORD + yyyyMMddHHmmssSSS（UTC）+ 節點編號（4 位）+ 流水號（4 位）
+ * 例如：ORD20250101120000123000100000（UTC 2025/01/01 12:00:00.123、節點 1、流水號 0）
+ *
+ * 注意：系統時間往回調時會沿用上一次的毫秒繼續遞增，編號仍然不會重複
+ */
+@Service
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final String PREFIX = "ORD";
+
+    //節點編號與流水號的範圍
+    static final int MAX_NODE_ID = 1023;
+    static final int MAX_SEQUENCE = 4095;
+    private static final int SEQUENCE_BITS = 12;
+
+    //編號中的時間格式（DateTimeFormatter 可以多執行緒共用）
+    //固定使用 UTC：本地時區在日光節約時間結束時同一個小時會出現兩次，不同毫秒可能格式化成相同的字串
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private final int nodeId;
+
+    //上一次產生編號的狀態：高位為毫秒，低 12 位為流水號
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(Environment env) {
+        this(env.getProperty("order.number.node-id", Integer.class, 0));
+    }
+
+    public SnowflakeOrderNumberGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new RuntimeException("order.number.node-id 必須介於 0 ~ " + MAX_NODE_ID + "，目前為 " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        long state = nextState(System.currentTimeMillis());
+        long millis = state >>> SEQUENCE_BITS;
+        int sequence = (int) (state & MAX_SEQUENCE);
+        return PREFIX + TIME_FORMAT.format(Instant.ofEpochMilli(millis))
+                + String.format("%04d%04d", nodeId, sequence);
+    }
+
+    /**
+     * 取得下一個「毫秒 + 流水號」狀態（CAS 失敗時重試，不會阻塞）
+     *
+     * @param now 目前時間（毫秒）
+     * @return 新的狀態值
+     */
+    long nextState(long now) {
+        while (true) {
+            long previous = lastState.get();
+            long previousMillis = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > previousMillis) {
+                // 新的毫秒：流水號從 0 開始
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                // 同一毫秒（或時間往回調）：流水號 + 1
+                next = previous + 1;
+            } else {
+                // 流水號用完：借用下一毫秒
+                next = (previousMillis + 1) << SEQUENCE_BITS;
+            }
+            if (lastState.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.InventoryService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 限時搶購庫存對帳
+ *
+ * 功能說明：
+ * 1. 啟動時先執行 InventoryService.recover()（補扣上次尚未對帳的訂單，重新載入搶購商品的庫存），
+ *    完成後才開始接受結帳
+ * 2. 之後由背景執行緒每 flashsale.flushIntervalMillis 毫秒將佇列中的訂單批次寫入資料庫，
+ *    佇列累積超過一批時連續處理，不等待
+ *
+ * 關閉時不需要清空佇列：尚未對帳的訂單在資料庫中有 stock_pending 標記，下次啟動時補扣
+ */
+@Component
+public class StockReconciler implements DisposableBean {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private Environment env;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean running = true;
+    private Thread thread;
+
+    //子容器的 ContextRefreshedEvent 也會傳到父容器，只啟動一次
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            inventoryService.recover();
+        } catch (RuntimeException e) {
+            // 復原失敗時背景對帳仍會繼續處理佇列，標記的訂單等下次啟動再補扣
+            System.out.println("❌ 庫存復原失敗：" + e.getMessage());
+        }
+        long intervalMillis = env.getProperty("flashsale.flushIntervalMillis", Long.class, 200L);
+        int batchSize = env.getProperty("flashsale.batchSize", Integer.class, 200);
+        thread = new Thread(() -> run(intervalMillis, batchSize), "stock-reconciler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run(long intervalMillis, int batchSize) {
+        while (running) {
+            try {
+                int count = inventoryService.reconcileQueued();
+                // 不滿一批時等待下一輪，讓更多訂單合併成一個交易
+                if (count < batchSize) {
+                    Thread.sleep(intervalMillis);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("❌ 庫存對帳失敗，稍後重試：" + e.getMessage());
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 記憶體內的倒排索引（BM25 排序）
+ *
+ * 功能說明：
+ * 1. 每個詞對應一份「文件編號 → 詞頻」清單（posting list）
+ * 2. 搜尋時只讀取查詢詞的清單，從最短的清單開始比對，不需要掃過全部文件
+ * 3. 以 BM25 計算分數：詞越少見（IDF 越高）、在文件中出現越多次、文件越短，分數越高
+ * 4. 支援單筆新增、更新、刪除，不需要重建整個索引
+ *
+ * 多執行緒：搜尋使用讀鎖（可同時進行），新增、刪除使用寫鎖
+ */
+public class Bm25Index {
+
+    //BM25 參數（一般建議值）
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    //詞 → (文件編號 → 詞頻)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    //文件編號 → (詞 → 詞頻)，刪除或更新文件時用來找出要移除的 posting
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+
+    //文件編號 → 文件長度（詞頻總和）
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或更新文件
+     *
+     * @param docId 文件編號
+     * @param termFrequencies 詞 → 詞頻（呼叫端可依欄位加權）
+     */
+    public void put(Long docId, Map<String, Integer> termFrequencies) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            Map<String, Integer> terms = new HashMap<>(termFrequencies);
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(docId, entry.getValue());
+                length += entry.getValue();
+            }
+            documents.put(docId, terms);
+            lengths.put(docId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 刪除文件（不存在時不做任何事）
+     *
+     * @param docId 文件編號
+     */
+    public void remove(Long docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long docId) {
+        Map<String, Integer> terms = documents.remove(docId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(docId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengths.remove(docId);
+    }
+
+    /**
+     * 搜尋包含所有查詢詞的文件，依 BM25 分數由高到低排序
+     *
+     * @param queryTerms 查詢詞（重複的詞只計算一次）
+     * @param filter 額外的篩選條件（例如產品類型，可為 null）
+     * @param limit 最多回傳幾筆
+     * @return 文件編號 List（分數相同時編號小的在前）
+     */
+    public List<Long> search(List<String> queryTerms, Predicate<Long> filter, int limit) {
+        Set<String> terms = new LinkedHashSet<>(queryTerms);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            // 取得每個詞的 posting list，任一個詞不存在就不可能有結果
+            List<Map<Long, Integer>> lists = new ArrayList<>();
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(posting);
+            }
+            // 從最短的清單開始，其他清單只做 HashMap 查詢
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            int docCount = documents.size();
+            double avgLength = docCount == 0 ? 0 : (double) totalLength / docCount;
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                int df = lists.get(i).size();
+                idf[i] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+
+            // 保留分數最高的 limit 筆（最小堆積，堆頂是目前最低分）
+            Comparator<ScoredDoc> ranking = Comparator.comparingDouble((ScoredDoc doc) -> doc.score)
+                    .thenComparing(doc -> doc.docId, Comparator.reverseOrder());
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(ranking);
+
+            candidates:
+            for (Long docId : lists.get(0).keySet()) {
+                if (filter != null && !filter.test(docId)) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * lengths.get(docId) / avgLength);
+                double score = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    Integer tf = lists.get(i).get(docId);
+                    if (tf == null) {
+                        continue candidates;
+                    }
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                top.offer(new ScoredDoc(docId, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<ScoredDoc> results = new ArrayList<>(top);
+            results.sort(ranking.reversed());
+            List<Long> docIds = new ArrayList<>(results.size());
+            for (ScoredDoc doc : results) {
+                docIds.add(doc.docId);
+            }
+            return docIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取得索引中的文件數
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //搜尋時的暫存結果
+    private static final class ScoredDoc {
+        private final Long docId;
+        private final double score;
+
+        private ScoredDoc(Long docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+    }
+}
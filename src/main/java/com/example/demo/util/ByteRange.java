@@ -0,0 +1,92 @@
+package com.example.demo.util;
+
+/**
+ * HTTP Range 標頭解析（只支援單一範圍）
+ *
+ * 支援的格式：
+ * - bytes=100-199 （第 100 ~ 199 位元組）
+ * - bytes=100-    （第 100 位元組到結尾）
+ * - bytes=-500    （最後 500 位元組）
+ *
+ * 多個範圍（bytes=0-9,20-29）不解析，依 HTTP 規範可以直接回傳整個檔案
+ */
+public final class ByteRange {
+
+    //範圍無法滿足（起點超過檔案大小或檔案是空的），應回應 416
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 解析 Range 標頭
+     *
+     * @param header Range 標頭的值
+     * @param length 檔案大小
+     * @return 範圍；標頭不存在、格式錯誤或有多個範圍時返回 null（回傳整個檔案），
+     *         範圍無法滿足時返回 UNSATISFIABLE
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // 最後 N 個位元組
+                long suffix = Long.parseLong(last);
+                // 空檔案沒有任何位元組可以回傳
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            if (end < start) {
+                return null;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //第一個位元組的位置
+    public long getStart() {
+        return start;
+    }
+
+    //最後一個位元組的位置（包含）
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Content-Range 標頭的值
+     *
+     * @param total 檔案大小
+     * @return 例如 bytes 100-199/1000
+     */
+    public String toContentRange(long total) {
+        return "bytes " + start + "-" + end + "/" + total;
+    }
+}
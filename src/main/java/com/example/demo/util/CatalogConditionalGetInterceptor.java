@@ -0,0 +1,84 @@
+package com.example.demo.util;
+
+import com.example.demo.model.CatalogSnapshot;
+import com.example.demo.model.Product;
+import com.example.demo.service.CatalogSnapshotService;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 產品頁條件式 GET 攔截器（ETag / Last-Modified）
+ *
+ * 功能說明：
+ * 1. 由記憶體中的目錄快照計算 ETag 與 Last-Modified，不查詢資料庫
+ *    - /products：目錄版本（任何產品異動都會改變）
+ *    - /products/detail/{id}：該產品的最後修改時間
+ * 2. 瀏覽器帶 If-None-Match / If-Modified-Since 且頁面未變更時直接回應 304，不執行 Controller
+ * 3. 頁面內容會依語系與使用者類型（管理員有管理按鈕）不同，ETag 包含這兩項
+ *
+ * 必須註冊在 LocaleChangeInterceptor 之後、PageCacheInterceptor 之前
+ * 兩個標頭都有時以 If-None-Match 為準，切換登入身分後 ETag 不同，不會拿到舊的頁面
+ */
+public class CatalogConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    public CatalogConditionalGetInterceptor(CatalogSnapshotService catalogSnapshotService) {
+        this.catalogSnapshotService = catalogSnapshotService;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = pathVariables != null ? pathVariables.get("id") : null;
+
+        String version;
+        long lastModified;
+        if (id == null) {
+            version = snapshot.getVersionTag();
+            lastModified = snapshot.getLastModified();
+        } else {
+            Product product;
+            try {
+                product = snapshot.get(Long.valueOf(id));
+            } catch (NumberFormatException e) {
+                return true;
+            }
+            if (product == null) {
+                // 不存在的產品交給 Controller 處理（重導向到列表）
+                return true;
+            }
+            long updated = product.getUpdatedDate() != null ? product.getUpdatedDate().getTime() : 0;
+            // 載入時間涵蓋重新啟動（可能換了模板），之後依產品自己的修改時間
+            lastModified = Math.max(snapshot.getLoadedAt(), updated);
+            version = Long.toHexString(snapshot.getLoadedAt()) + "-" + Long.toHexString(updated);
+        }
+
+        HttpSession session = request.getSession(false);
+        String userType = session != null ? SessionHelper.getUserType(session) : null;
+        String variant = Integer.toHexString(Objects.hash(RequestContextUtils.getLocale(request), userType));
+        String etag = "\"" + version + "-" + variant + "\"";
+
+        // 頁面依登入狀態不同：只允許瀏覽器快取，每次使用前都要重新驗證
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.addHeader("Vary", "Cookie");
+
+        // 未變更時會設定 304 狀態，並加上 ETag 與 Last-Modified 標頭
+        return !new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
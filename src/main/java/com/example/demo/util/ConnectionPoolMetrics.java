@@ -0,0 +1,120 @@
+package com.example.demo.util;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 連線池統計工具類別
+ *
+ * 功能說明：
+ * 1. 實作 HikariCP 的 MetricsTrackerFactory，由連線池回報統計資料
+ * 2. 記錄取得連線所花的時間（以固定區間的直方圖累計）
+ * 3. 提供目前使用中、閒置、等待中的連線數
+ *
+ * 用途：提供給管理員後台查看，作為調整每個節點連線池大小的依據
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    //取得連線時間的直方圖區間上限（毫秒），最後一格為「超過最大值」
+    private static final long[] ACQUIRE_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    //各區間的累計次數（多執行緒寫入使用 LongAdder 避免競爭）
+    private final LongAdder[] acquireBuckets = new LongAdder[ACQUIRE_BUCKETS_MS.length + 1];
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireTotalNanos = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    //連線池建立後由 HikariCP 提供的即時狀態
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    public ConnectionPoolMetrics() {
+        for (int i = 0; i < acquireBuckets.length; i++) {
+            acquireBuckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 連線池啟動時由 HikariCP 呼叫
+     *
+     * @param poolName 連線池名稱
+     * @param poolStats 連線池即時狀態
+     * @return 統計資料追蹤器
+     */
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordAcquire(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeoutCount.increment();
+            }
+        };
+    }
+
+    //記錄一次取得連線的時間
+    private void recordAcquire(long elapsedNanos) {
+        acquireCount.increment();
+        acquireTotalNanos.add(elapsedNanos);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        int index = ACQUIRE_BUCKETS_MS.length;
+        for (int i = 0; i < ACQUIRE_BUCKETS_MS.length; i++) {
+            if (elapsedMs <= ACQUIRE_BUCKETS_MS[i]) {
+                index = i;
+                break;
+            }
+        }
+        acquireBuckets[index].increment();
+    }
+
+    /**
+     * 取得目前的連線池統計快照
+     *
+     * @return 統計資料（連線數、等待數、取得連線時間直方圖）
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("poolName", poolName);
+
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            result.put("totalConnections", stats.getTotalConnections());
+            result.put("activeConnections", stats.getActiveConnections());
+            result.put("idleConnections", stats.getIdleConnections());
+            result.put("pendingThreads", stats.getPendingThreads());
+            result.put("maxConnections", stats.getMaxConnections());
+            result.put("minConnections", stats.getMinConnections());
+        }
+
+        long count = acquireCount.sum();
+        result.put("acquireCount", count);
+        result.put("acquireTimeouts", timeoutCount.sum());
+        result.put("acquireAvgMillis", count == 0 ? 0.0
+                : acquireTotalNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1));
+
+        // 直方圖：key 為區間上限，例如 "<=10ms"
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < ACQUIRE_BUCKETS_MS.length; i++) {
+            histogram.put("<=" + ACQUIRE_BUCKETS_MS[i] + "ms", acquireBuckets[i].sum());
+        }
+        histogram.put(">" + ACQUIRE_BUCKETS_MS[ACQUIRE_BUCKETS_MS.length - 1] + "ms",
+                acquireBuckets[ACQUIRE_BUCKETS_MS.length].sum());
+        result.put("acquireHistogram", histogram);
+
+        return result;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 事件環形緩衝區（多個發布者、多個消費者）
+ *
+ * 功能說明：
+ * 1. 建立時預先配置所有事件物件，發布時取得下一個序號、填入該位置的事件物件再標記為已發布，
+ *    不建立新物件也不使用鎖
+ * 2. 每個消費者有自己的序號，各自讀取所有事件；一次取出所有已發布的連續事件（批次），
+ *    處理完整批才推進序號
+ * 3. 最慢的消費者還沒讀完的位置不會被覆蓋：緩衝區已滿時 tryClaim() 回傳 -1 並計入 dropped，
+ *    發布者不等待
+ * 4. 消費者的延遲（lag）= 已發布的最大序號 - 消費者已處理的序號
+ *
+ * 事件物件會重複使用：消費者只能在 Handler 中讀取，需要保留的資料請自行複製
+ *
+ * @param <E> 事件的型別
+ */
+public class EventRingBuffer<E> {
+
+    /**
+     * 消費者處理事件的介面
+     */
+    public interface Handler<E> {
+        /**
+         * @param event 事件（處理完後會被重複使用）
+         * @param sequence 事件序號
+         * @param endOfBatch 是否為這一批的最後一個事件
+         */
+        void onEvent(E event, long sequence, boolean endOfBatch);
+    }
+
+    /**
+     * 消費者的讀取位置
+     */
+    public static final class Consumer {
+        private final String name;
+        private final AtomicLong sequence;
+
+        private Consumer(String name, long sequence) {
+            this.name = name;
+            this.sequence = new AtomicLong(sequence);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 已處理的最後一個序號
+         */
+        public long getSequence() {
+            return sequence.get();
+        }
+    }
+
+    private final Object[] slots;
+    private final int mask;
+    //各位置目前已發布的序號（消費者以此判斷位置是否已填好）
+    private final AtomicLongArray published;
+    //已分配的最大序號
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong dropped = new AtomicLong();
+
+    //以陣列保存，計算最慢的消費者時不需要建立 Iterator
+    private volatile Consumer[] consumers = new Consumer[0];
+    //上次計算的最慢消費者序號（緩衝區還有空間時不需要重新計算）
+    private volatile long gatingSequence = -1;
+
+    /**
+     * @param size 緩衝區大小（2 的次方）
+     * @param factory 建立事件物件
+     */
+    public EventRingBuffer(int size, Supplier<E> factory) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("緩衝區大小必須是 2 的次方：" + size);
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * 新增消費者（從目前的位置開始讀取，之前發布的事件不會收到）
+     *
+     * @param name 消費者名稱（統計使用）
+     * @return 消費者的讀取位置
+     */
+    public synchronized Consumer addConsumer(String name) {
+        Consumer consumer = new Consumer(name, cursor.get());
+        Consumer[] updated = Arrays.copyOf(consumers, consumers.length + 1);
+        updated[consumers.length] = consumer;
+        consumers = updated;
+        return consumer;
+    }
+
+    /**
+     * 取得下一個可寫入的序號
+     *
+     * @return 序號；緩衝區已滿（最慢的消費者還沒讀完）時回傳 -1
+     */
+    public long tryClaim() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - slots.length;
+            if (wrapPoint > gatingSequence) {
+                long slowest = slowestConsumer(current);
+                gatingSequence = slowest;
+                if (wrapPoint > slowest) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * 取得序號對應的事件物件（tryClaim 之後填入資料用）
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    /**
+     * 標記事件已填好，消費者可以讀取
+     */
+    public void publish(long sequence) {
+        published.lazySet((int) sequence & mask, sequence);
+    }
+
+    /**
+     * 處理消費者尚未讀取的事件（一次最多 maxBatch 個），由消費者的執行緒呼叫
+     *
+     * @return 本次處理的事件數，沒有新事件時為 0
+     */
+    public int poll(Consumer consumer, Handler<E> handler, int maxBatch) {
+        long next = consumer.sequence.get() + 1;
+        long limit = Math.min(cursor.get(), next + maxBatch - 1);
+        long end = next - 1;
+        // 只取連續已發布的事件：序號較小的發布者還沒填好時先停在它前面
+        while (end < limit && published.get((int) (end + 1) & mask) == end + 1) {
+            end++;
+        }
+        if (end < next) {
+            return 0;
+        }
+        for (long sequence = next; sequence <= end; sequence++) {
+            handler.onEvent(get(sequence), sequence, sequence == end);
+        }
+        consumer.sequence.set(end);
+        return (int) (end - next + 1);
+    }
+
+    /**
+     * 消費者尚未處理的事件數
+     */
+    public long lag(Consumer consumer) {
+        return Math.max(0, cursor.get() - consumer.sequence.get());
+    }
+
+    /**
+     * 已分配的最大序號（-1 表示尚未發布任何事件）
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * 緩衝區已滿而捨棄的事件數
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getSize() {
+        return slots.length;
+    }
+
+    //最慢的消費者已處理的序號（沒有消費者時不限制）
+    private long slowestConsumer(long defaultSequence) {
+        long slowest = defaultSequence;
+        Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            slowest = Math.min(slowest, current[i].sequence.get());
+        }
+        return slowest;
+    }
+}
@@ -4,9 +4,18 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.UUID;
 
 /**
@@ -15,8 +24,11 @@ import java.util.UUID;
  * 功能說明：
  * 1. 處理檔案上傳
  * 2. 驗證檔案類型
- * 3. 產生唯一檔名
+ * 3. 以內容的 SHA-256 作為檔名（相同的圖片只儲存一份）
  * 4. 儲存檔案到指定目錄
+ *
+ * 儲存時以固定大小的緩衝區從上傳串流直接寫入檔案，同時計算 SHA-256，
+ * 不會把整個檔案讀進記憶體（MultipartFile.getBytes()）
  */
 public class FileUploadUtil {
     
@@ -28,6 +40,9 @@ public class FileUploadUtil {
     //最大檔案大小（5MB）
       private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
     
+    //串流複製的緩衝區大小（64KB）
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
     /**
      * 儲存上傳的圖片檔案
      * 
@@ -71,10 +86,6 @@ public class FileUploadUtil {
         
         System.out.println("✓ 副檔名驗證通過：" + fileExtension);
         
-        // 產生唯一檔名
-        String newFilename = generateUniqueFilename(originalFilename);
-        System.out.println("✓ 新檔名：" + newFilename);
-        
         // 建立上傳目錄（如果不存在）
         File uploadDir = new File(uploadPath);
         if (!uploadDir.exists()) {
@@ -84,11 +95,30 @@ public class FileUploadUtil {
             }
         }
         
-        // 儲存檔案
-        Path filePath = Paths.get(uploadPath, newFilename);
-        Files.write(filePath, file.getBytes());
+        // 先寫入暫存檔，同時計算 SHA-256
+        Path tempPath = Paths.get(uploadPath, ".upload-" + UUID.randomUUID() + ".tmp");
+        String newFilename;
+        try {
+            String hash;
+            try (InputStream in = file.getInputStream()) {
+                hash = copyAndHash(in, tempPath);
+            }
+            
+            // 內容雜湊作為檔名：相同內容的圖片只保留一份
+            newFilename = hash + "." + fileExtension;
+            Path filePath = Paths.get(uploadPath, newFilename);
+            if (Files.exists(filePath)) {
+                System.out.println("○ 相同內容的檔案已存在，不重複儲存：" + filePath);
+            } else {
+                // 同時上傳相同內容時，後者覆蓋的也是相同的內容
+                Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+                System.out.println("✓ 檔案儲存成功：" + filePath);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
         
-        System.out.println("✓ 檔案儲存成功：" + filePath);
+        System.out.println("✓ 新檔名：" + newFilename);
         System.out.println("====================================");
         
         return newFilename;
@@ -114,6 +144,56 @@ public class FileUploadUtil {
         }
     }
     
+    /**
+     * 以固定大小的緩衝區把串流寫入檔案，同一次讀取中計算 SHA-256
+     * 
+     * @param in 上傳檔案的串流
+     * @param target 要寫入的檔案（不可已存在）
+     * @return 內容的 SHA-256（16 進位小寫）
+     * @throws IOException 檔案操作失敗
+     * @throws IllegalArgumentException 實際內容超過大小限制
+     */
+    private static String copyAndHash(InputStream in, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long total = 0;
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                total += buffer.remaining();
+                // 上傳時宣告的大小不可信，以實際讀到的位元組數再檢查一次
+                if (total > MAX_FILE_SIZE) {
+                    throw new IllegalArgumentException("檔案大小超過限制（最大 5MB）");
+                }
+                digest.update(buffer.array(), buffer.position(), buffer.remaining());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return toHex(digest.digest());
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 每個 JVM 都必須提供 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+    
     //取得檔案副檔名
 
     private static String getFileExtension(String filename) {
@@ -135,22 +215,6 @@ public class FileUploadUtil {
         return false;
     }
     
-    //產生唯一的檔名
-    private static String generateUniqueFilename(String originalFilename) {
-        String extension = getFileExtension(originalFilename);
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-        long timestamp = System.currentTimeMillis();
-        
-        String baseName = originalFilename.substring(0, originalFilename.lastIndexOf('.'));
-        baseName = baseName.replaceAll("[^a-zA-Z0-9]", "_");
-        
-        if (baseName.length() > 20) {
-            baseName = baseName.substring(0, 20);
-        }
-        
-        return uuid + "_" + timestamp + "_" + baseName + "." + extension;
-    }
-    
     //驗證檔案是否為圖片
     public static boolean isImageFile(MultipartFile file) {
         String contentType = file.getContentType();
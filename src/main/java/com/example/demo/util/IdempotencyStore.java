@@ -0,0 +1,181 @@
+package com.example.demo.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 重複請求去除（冪等鍵）
+ *
+ * 功能說明：
+ * 1. 同一個鍵第一次執行時記錄結果，之後相同的鍵直接回傳第一次的結果，不再執行
+ * 2. 第一次還在執行時，重複的請求等待它完成並取得相同的結果（不會同時執行兩次）
+ * 3. 執行失敗時不保留：等待中的重複請求收到相同的例外，之後相同的鍵可以重新執行
+ * 4. 記錄超過存活時間後失效；筆數超過上限時移除最舊的已完成記錄
+ *
+ * 記錄只保存在本機記憶體中
+ *
+ * @param <V> 結果的型別
+ */
+public class IdempotencyStore<V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    //依加入順序排列：最前面的就是最舊的
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+
+    /**
+     * @param maxEntries 最多保留的記錄數
+     * @param ttlMillis 記錄的存活時間（毫秒）
+     */
+    public IdempotencyStore(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 執行動作（相同的鍵只執行一次）
+     *
+     * @param key 冪等鍵
+     * @param action 要執行的動作
+     * @return 動作的結果（重複的請求為第一次的結果）
+     * @throws RuntimeException 動作拋出的例外
+     */
+    public V execute(String key, Supplier<V> action) {
+        return await(executeAsync(key, () -> CompletableFuture.completedFuture(action.get())));
+    }
+
+    /**
+     * 執行非同步動作（相同的鍵只執行一次）
+     *
+     * 記錄在動作回傳的 Future 完成之前一直保留：呼叫端等待逾時不會移除記錄，
+     * 之後相同的鍵取得同一個 Future，不會再執行一次
+     *
+     * @param key 冪等鍵
+     * @param action 要執行的動作（回傳完成時帶有結果的 Future）
+     * @return 第一次執行的結果（重複的請求取得同一個 Future）
+     * @throws RuntimeException 動作本身拋出的例外
+     */
+    public CompletableFuture<V> executeAsync(String key, Supplier<CompletableFuture<V>> action) {
+        Entry<V> entry;
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now, ttlMillis)) {
+                return entry.result;
+            }
+            entries.remove(key);
+            entry = new Entry<>(now);
+            entries.put(key, entry);
+            evict(now);
+        }
+
+        Entry<V> owned = entry;
+        CompletableFuture<V> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException | Error e) {
+            fail(key, owned, e);
+            throw e;
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                owned.result.complete(value);
+            } else {
+                fail(key, owned, error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return owned.result;
+    }
+
+    /**
+     * 目前保留的記錄數
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 取得統計快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", size());
+        result.put("maxEntries", maxEntries);
+        result.put("ttlMillis", ttlMillis);
+        return result;
+    }
+
+    //失敗的記錄不保留，等待中的重複請求收到相同的例外
+    private void fail(String key, Entry<V> entry, Throwable error) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+        entry.result.completeExceptionally(error);
+    }
+
+    //移除過期的記錄，超過上限時再移除最舊的已完成記錄（執行中的保留）
+    private void evict(long now) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        int size = entries.size();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next();
+            if (entry.isExpired(now, ttlMillis) || (size > maxEntries && entry.result.isDone())) {
+                iterator.remove();
+                size--;
+            } else if (size <= maxEntries) {
+                // 之後的記錄都比較新，不會過期
+                break;
+            }
+        }
+    }
+
+    //等待第一次執行完成，失敗時拋出相同的例外
+    private static <V> V await(CompletableFuture<V> result) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return result.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new CompletionException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final long createdAt;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        Entry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        //執行中的記錄不會過期
+        boolean isExpired(long now, long ttlMillis) {
+            return result.isDone() && now - createdAt > ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.demo.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 產品圖片縮圖產生工具類別
+ *
+ * 功能說明：
+ * 1. 依指定寬度等比例縮小原圖，重新壓縮成 JPEG（品質 0.8）
+ * 2. 縮圖與原圖放在同一個目錄：abc.png → abc-w320.jpg、abc-w640.jpg
+ * 3. 原圖以內容雜湊命名，相同檔名的縮圖內容必定相同，已存在時不重新產生
+ * 4. 解碼前先讀取原圖尺寸：超過 MAX_PIXELS 的圖片不產生縮圖；
+ *    比最大縮圖寬很多的原圖以間隔取樣（subsampling）解碼，不會把整張大圖載入記憶體
+ *
+ * JDK 的 ImageIO 沒有 WebP 編碼器，因此一律輸出 JPEG；無法讀取的格式（例如 WebP 原圖）不產生縮圖
+ */
+public final class ImageVariantGenerator {
+
+    private static final float JPEG_QUALITY = 0.8f;
+
+    //原圖最多的像素數（約 10000 x 10000），超過時不產生縮圖
+    private static final long MAX_PIXELS = 100_000_000L;
+
+    private ImageVariantGenerator() {
+    }
+
+    /**
+     * 取得縮圖檔名
+     *
+     * @param filename 原圖檔名（例如 abc.png）
+     * @param width 縮圖寬度
+     * @return 縮圖檔名（例如 abc-w320.jpg）
+     */
+    public static String variantFilename(String filename, int width) {
+        int dot = filename.lastIndexOf('.');
+        String baseName = dot > 0 ? filename.substring(0, dot) : filename;
+        return baseName + "-w" + width + ".jpg";
+    }
+
+    /**
+     * 產生各寬度的縮圖
+     *
+     * @param source 原圖
+     * @param widths 縮圖寬度（原圖比較窄時以原圖寬度重新壓縮）
+     * @return 成功產生（或已存在）的寬度，無法讀取原圖或原圖過大時為空 List
+     * @throws IOException 檔案讀寫失敗
+     */
+    public static List<Integer> generate(Path source, int[] widths) throws IOException {
+        List<Integer> generated = new ArrayList<>();
+        int maxWidth = 0;
+        for (int width : widths) {
+            maxWidth = Math.max(maxWidth, width);
+        }
+        BufferedImage image = null;
+        for (int width : widths) {
+            Path target = source.resolveSibling(variantFilename(source.getFileName().toString(), width));
+            if (!Files.exists(target)) {
+                // 只在需要時才解碼原圖
+                if (image == null) {
+                    image = read(source, maxWidth);
+                    if (image == null) {
+                        return generated;
+                    }
+                }
+                writeJpeg(scale(image, Math.min(width, image.getWidth())), target);
+            }
+            generated.add(width);
+        }
+        return generated;
+    }
+
+    /**
+     * 解碼原圖
+     * 先讀取尺寸再解碼：寬度超過最大縮圖寬兩倍以上時以間隔取樣解碼，
+     * 解碼後的寬度仍至少是最大縮圖寬的兩倍，逐步縮小時畫質不受影響
+     *
+     * @return 解碼後的圖片；無法讀取或超過 MAX_PIXELS 時為 null
+     */
+    private static BufferedImage read(Path source, int maxWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    System.err.println("❌ 原圖過大，不產生縮圖：" + source.getFileName() + "（" + width + " x " + height + "）");
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = width / (maxWidth * 2);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 刪除原圖的所有縮圖
+     *
+     * @param source 原圖
+     * @param widths 縮圖寬度
+     */
+    public static void delete(Path source, int[] widths) {
+        for (int width : widths) {
+            try {
+                Files.deleteIfExists(source.resolveSibling(
+                        variantFilename(source.getFileName().toString(), width)));
+            } catch (IOException e) {
+                System.err.println("❌ 刪除縮圖失敗：" + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 等比例縮小到指定寬度
+     * 一次縮小太多倍時畫質很差，先以一半的寬度逐步縮小，最後一步再縮到目標寬度
+     */
+    private static BufferedImage scale(BufferedImage source, int width) {
+        BufferedImage current = toRgb(source);
+        int currentWidth = current.getWidth();
+        int currentHeight = current.getHeight();
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = Math.max(1, (int) Math.round((double) currentHeight * nextWidth / currentWidth));
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            g.dispose();
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    //JPEG 沒有透明度：透明的部分以白色填滿
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, source.getWidth(), source.getHeight());
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+
+    //先寫入暫存檔再改名，請求不會讀到寫到一半的縮圖
+    //暫存檔名每次不同：同時產生同一張縮圖的執行緒不會寫到同一個檔案
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 頁面輸出快取（已渲染的 HTML）
+ *
+ * 功能說明：
+ * 1. 以（頁面、產品編號或查詢字串、語系、使用者類型）為 key 保存 Thymeleaf 渲染後的 HTML
+ * 2. 限制筆數與總位元組數，超過時淘汰最久沒有使用的頁面（LRU）
+ * 3. 產品異動時清除所有列表頁與該產品的詳細頁
+ * 4. 記錄命中、未命中、淘汰次數，提供給管理員後台查看
+ *
+ * 每次清除都會遞增版本號：渲染開始前取得的版本號與儲存時不同，表示渲染期間資料已變更，
+ * 該頁面不會被存入快取，避免存入過期的內容
+ */
+public class PageCache {
+
+    //列表頁使用的產品編號（詳細頁使用實際的產品編號）
+    public static final Long LISTING = null;
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    //accessOrder = true：每次讀取都移到最後，最前面的就是最久沒有使用的
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    //資料版本號（每次清除時遞增）
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PageCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 取得快取的頁面
+     *
+     * @param key 頁面 key
+     * @return HTML 位元組，未快取時返回 null
+     */
+    public byte[] get(Key key) {
+        byte[] body;
+        synchronized (this) {
+            body = entries.get(key);
+        }
+        if (body != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return body;
+    }
+
+    /**
+     * 取得目前的資料版本號（渲染前呼叫，儲存時傳回給 put）
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 存入頁面
+     *
+     * @param key 頁面 key
+     * @param body HTML 位元組
+     * @param renderedGeneration 渲染前取得的版本號（已過期時不會存入）
+     */
+    public synchronized void put(Key key, byte[] body, long renderedGeneration) {
+        if (renderedGeneration != generation.get() || body.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(key, body);
+        if (previous != null) {
+            totalBytes -= previous.length;
+        }
+        totalBytes += body.length;
+
+        // 超過上限時從最久沒有使用的開始淘汰
+        Iterator<byte[]> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            totalBytes -= iterator.next().length;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 產品異動後清除：所有列表頁與該產品的詳細頁
+     *
+     * @param prodNum 產品編號
+     */
+    public synchronized void invalidateProduct(Long prodNum) {
+        generation.incrementAndGet();
+        Iterator<Map.Entry<Key, byte[]>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, byte[]> entry = iterator.next();
+            Long entryProdNum = entry.getKey().prodNum;
+            if (entryProdNum == LISTING || entryProdNum.equals(prodNum)) {
+                totalBytes -= entry.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 清除所有頁面
+     */
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * 取得目前的快取統計快照
+     *
+     * @return 筆數、位元組數、命中、未命中、淘汰次數與命中率
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (this) {
+            result.put("entries", entries.size());
+            result.put("bytes", totalBytes);
+        }
+        result.put("maxEntries", maxEntries);
+        result.put("maxBytes", maxBytes);
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        result.put("hitCount", hitCount);
+        result.put("missCount", missCount);
+        result.put("evictionCount", evictions.sum());
+        result.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return result;
+    }
+
+    /**
+     * 頁面 key
+     */
+    public static final class Key {
+        private final String view;
+        private final Long prodNum;
+        private final String query;
+        private final Locale locale;
+        private final String userType;
+
+        /**
+         * @param view 頁面名稱（例如 products、product-detail）
+         * @param prodNum 詳細頁的產品編號（列表頁使用 LISTING）
+         * @param query 查詢字串（可為 null）
+         * @param locale 語系
+         * @param userType 使用者類型（admin 看到的頁面有管理按鈕，未登入為 null）
+         */
+        public Key(String view, Long prodNum, String query, Locale locale, String userType) {
+            this.view = view;
+            this.prodNum = prodNum;
+            this.query = query;
+            this.locale = locale;
+            this.userType = userType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return view.equals(other.view)
+                    && Objects.equals(prodNum, other.prodNum)
+                    && Objects.equals(query, other.query)
+                    && Objects.equals(locale, other.locale)
+                    && Objects.equals(userType, other.userType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(view, prodNum, query, locale, userType);
+        }
+
+        @Override
+        public String toString() {
+            return view + (prodNum != null ? "/" + prodNum : "") + (query != null ? "?" + query : "")
+                    + " [" + locale + ", " + userType + "]";
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.util;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.util.Map;
+
+/**
+ * 頁面輸出快取攔截器（產品列表與產品詳細頁）
+ *
+ * 功能說明：
+ * 1. Controller 執行前依網址、語系（CookieLocaleResolver）、使用者類型組成 key 查詢快取
+ * 2. 命中時直接輸出快取的 HTML，不執行 Controller 也不經過 Thymeleaf
+ * 3. 未命中時把 key 與目前的版本號放在 request 屬性，由 PageCachingThymeleafView 渲染後存入
+ *
+ * 必須註冊在 LocaleChangeInterceptor 之後，?lang= 切換的語系才會反映在 key 上
+ */
+public class PageCacheInterceptor implements HandlerInterceptor {
+
+    //request 屬性：本次要存入的 key 與渲染前的版本號
+    public static final String KEY_ATTRIBUTE = PageCacheInterceptor.class.getName() + ".key";
+    public static final String GENERATION_ATTRIBUTE = PageCacheInterceptor.class.getName() + ".generation";
+
+    private final PageCache pageCache;
+
+    public PageCacheInterceptor(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // 只快取 GET；網址帶 jsessionid 時連結會被改寫，不能共用
+        if (!"GET".equals(request.getMethod()) || request.isRequestedSessionIdFromURL()) {
+            return true;
+        }
+        PageCache.Key key = buildKey(request);
+        if (key == null) {
+            return true;
+        }
+
+        byte[] body = pageCache.get(key);
+        if (body != null) {
+            response.setContentType("text/html;charset=UTF-8");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            return false;
+        }
+
+        request.setAttribute(KEY_ATTRIBUTE, key);
+        request.setAttribute(GENERATION_ATTRIBUTE, pageCache.generation());
+        return true;
+    }
+
+    /**
+     * 組成頁面 key
+     * /products/detail/{id} 以產品編號區分；/products 以查詢字串區分
+     *
+     * @return 頁面 key，產品編號格式錯誤時返回 null（不快取）
+     */
+    @SuppressWarnings("unchecked")
+    private PageCache.Key buildKey(HttpServletRequest request) {
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = pathVariables != null ? pathVariables.get("id") : null;
+
+        HttpSession session = request.getSession(false);
+        String userType = session != null ? SessionHelper.getUserType(session) : null;
+
+        if (id == null) {
+            return new PageCache.Key("products", PageCache.LISTING, request.getQueryString(),
+                    RequestContextUtils.getLocale(request), userType);
+        }
+        try {
+            return new PageCache.Key("product-detail", Long.valueOf(id), null,
+                    RequestContextUtils.getLocale(request), userType);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.util;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.spring5.view.ThymeleafView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.CharArrayWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 會把渲染結果存入頁面快取的 Thymeleaf View
+ *
+ * 只處理 PageCacheInterceptor 標記為未命中的請求：
+ * 先把 HTML 渲染到記憶體，存入 PageCache 後再輸出給瀏覽器
+ * 其他頁面與原本的 ThymeleafView 相同
+ *
+ * 所有頁面的渲染時間都會記錄到 TemplateMetrics
+ */
+public class PageCachingThymeleafView extends ThymeleafView {
+
+    private PageCache pageCache;
+
+    private TemplateMetrics templateMetrics;
+
+    @Override
+    protected void initApplicationContext(ApplicationContext context) {
+        super.initApplicationContext(context);
+        pageCache = context.getBean(PageCache.class);
+        templateMetrics = context.getBean(TemplateMetrics.class);
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        long start = System.nanoTime();
+        try {
+            renderOrCache(model, request, response);
+        } finally {
+            templateMetrics.recordRender(getTemplateName(), System.nanoTime() - start);
+        }
+    }
+
+    private void renderOrCache(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        if (!isCacheable(model, request)) {
+            // 瀏覽器也不能保存，否則之後以 ETag 重新驗證時會一直看到這次的訊息
+            response.setHeader("Cache-Control", "no-store");
+            super.render(model, request, response);
+            return;
+        }
+        PageCache.Key key = (PageCache.Key) request.getAttribute(PageCacheInterceptor.KEY_ATTRIBUTE);
+        if (key == null) {
+            super.render(model, request, response);
+            return;
+        }
+
+        CapturingResponse capturing = new CapturingResponse(response);
+        super.render(model, request, capturing);
+        byte[] body = capturing.getBody();
+
+        long generation = (Long) request.getAttribute(PageCacheInterceptor.GENERATION_ATTRIBUTE);
+        pageCache.put(key, body, generation);
+
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    //錯誤訊息與重導向帶來的一次性訊息只屬於這次請求，不能快取
+    private boolean isCacheable(Map<String, ?> model, HttpServletRequest request) {
+        if (model != null && model.containsKey("error")) {
+            return false;
+        }
+        Map<String, ?> flashMap = RequestContextUtils.getInputFlashMap(request);
+        return flashMap == null || flashMap.isEmpty();
+    }
+
+    /**
+     * 把 Thymeleaf 寫出的字元暫存在記憶體，其餘（Content-Type、編碼、URL 改寫）交給原本的 response
+     */
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final CharArrayWriter buffer = new CharArrayWriter(16 * 1024);
+        private final PrintWriter writer = new PrintWriter(buffer);
+
+        CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            writer.flush();
+        }
+
+        byte[] getBody() {
+            writer.flush();
+            return buffer.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 產品圖片儲存位置
+ *
+ * 功能說明：
+ * 1. 集中管理上傳目錄（可設定在 WAR 以外，重新部署時圖片不會消失）與圖片網址
+ * 2. 檢查檔名，不允許 ../ 等存取目錄以外的檔案
+ * 3. 以 LRU 在記憶體保存常用的小檔案（縮圖），命中時不需讀取磁碟
+ *
+ * 記憶體中的內容以檔案的修改時間與大小驗證，檔案被替換或刪除後不會回傳舊的內容
+ */
+public class ProductImageStore {
+
+    //圖片網址前綴（由 ImageController 處理）
+    public static final String URL_PREFIX = "/images/products/";
+
+    //只允許英數字、底線、連字號與點，且不可以點開頭（暫存檔與隱藏檔）
+    private static final Pattern SAFE_FILENAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    private final Path directory;
+
+    //超過此大小的檔案不放進記憶體
+    private final long maxCachedFileSize;
+    private final long maxCacheBytes;
+
+    //accessOrder = true：最前面的就是最久沒有使用的
+    private final LinkedHashMap<String, CachedImage> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes;
+
+    /**
+     * @param directory 上傳目錄（不存在時自動建立）
+     * @param maxCachedFileSize 放進記憶體的單一檔案大小上限
+     * @param maxCacheBytes 記憶體快取的總位元組數上限
+     */
+    public ProductImageStore(Path directory, long maxCachedFileSize, long maxCacheBytes) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxCachedFileSize = maxCachedFileSize;
+        this.maxCacheBytes = maxCacheBytes;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("無法建立圖片目錄：" + this.directory, e);
+        }
+        System.out.println("✓ 產品圖片目錄：" + this.directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 取得圖片網址
+     *
+     * @param filename 檔名
+     * @return 例如 /images/products/abc.jpg
+     */
+    public String toUrl(String filename) {
+        return URL_PREFIX + filename;
+    }
+
+    /**
+     * 從網址中提取檔名：/images/products/abc.jpg → abc.jpg
+     * （舊資料的 /resources/images/products/abc.jpg 也適用）
+     */
+    public static String filename(String imageUrl) {
+        return imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * 取得圖片檔案的路徑
+     *
+     * @param filename 檔名
+     * @return 檔案路徑，檔名不合法時返回 null
+     */
+    public Path resolve(String filename) {
+        if (filename == null || !SAFE_FILENAME.matcher(filename).matches()) {
+            return null;
+        }
+        return directory.resolve(filename);
+    }
+
+    /**
+     * 取得小檔案的內容（記憶體中沒有或已過期時從磁碟讀取並保存）
+     *
+     * @param filename 檔名
+     * @param file 檔案路徑
+     * @param attributes 檔案屬性（用來驗證記憶體中的內容是否過期）
+     * @return 檔案內容，檔案太大時返回 null（由呼叫端直接從磁碟傳送）
+     * @throws IOException 讀取失敗
+     */
+    public byte[] getSmallFile(String filename, Path file, BasicFileAttributes attributes) throws IOException {
+        if (attributes.size() > maxCachedFileSize) {
+            return null;
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        synchronized (this) {
+            CachedImage cached = cache.get(filename);
+            if (cached != null && cached.lastModified == lastModified && cached.bytes.length == attributes.size()) {
+                return cached.bytes;
+            }
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        synchronized (this) {
+            CachedImage previous = cache.put(filename, new CachedImage(bytes, lastModified));
+            if (previous != null) {
+                cacheBytes -= previous.bytes.length;
+            }
+            cacheBytes += bytes.length;
+            Iterator<CachedImage> iterator = cache.values().iterator();
+            while (cacheBytes > maxCacheBytes && iterator.hasNext()) {
+                cacheBytes -= iterator.next().bytes.length;
+                iterator.remove();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 取得記憶體快取的統計快照
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("directory", directory.toString());
+        result.put("cachedFiles", cache.size());
+        result.put("cachedBytes", cacheBytes);
+        result.put("maxCacheBytes", maxCacheBytes);
+        return result;
+    }
+
+    private static final class CachedImage {
+        private final byte[] bytes;
+        private final long lastModified;
+
+        CachedImage(byte[] bytes, long lastModified) {
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜尋用斷詞工具類別
+ *
+ * 功能說明：
+ * 1. 先做 NFKC 正規化並轉小寫（全形英數字會轉成半形，例如「ＡＢＣ」→「abc」）
+ * 2. 英文、數字：連續的字母或數字為一個詞，例如「iPhone 15」→ iphone、15
+ * 3. 中日韓文字：沒有空白分詞，改用相鄰兩字（bigram）作為詞，例如「藍牙耳機」→ 藍牙、牙耳、耳機
+ * 4. 其他符號、空白視為分隔
+ *
+ * 建立索引時中日韓文字會額外加入單字，讓只輸入一個字（例如「茶」）也能搜尋到
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 建立索引用的斷詞（中日韓文字同時產生單字與 bigram）
+     *
+     * @param text 原始文字（可為 null）
+     * @return 詞的 List（保留重複，用來計算詞頻）
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 搜尋關鍵字用的斷詞（中日韓文字只有一個字時才用單字，否則只用 bigram）
+     *
+     * @param text 搜尋關鍵字（可為 null）
+     * @return 詞的 List
+     */
+    public static List<String> tokenizeForQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder word = new StringBuilder();
+        List<String> cjkRun = new ArrayList<>();
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.add(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjkRun, tokens, withUnigrams);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens, withUnigrams);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens, withUnigrams);
+        return tokens;
+    }
+
+    //英數字詞結束
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    //一段連續的中日韓文字結束：產生 bigram（只有一個字時產生單字）
+    private static void flushCjk(List<String> run, List<String> tokens, boolean withUnigrams) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (run.size() == 1 || withUnigrams) {
+            tokens.addAll(run);
+        }
+        for (int j = 0; j + 1 < run.size(); j++) {
+            tokens.add(run.get(j) + run.get(j + 1));
+        }
+        run.clear();
+    }
+
+    //判斷是否為中日韓文字（漢字、平假名、片假名、韓文）
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.util;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate 二級快取統計工具類別
+ *
+ * 功能說明：
+ * 1. 讀取 Hibernate Statistics 中各快取區域的命中、未命中、寫入次數
+ * 2. 計算命中率，提供給管理員後台查看
+ *
+ * 需要開啟 hibernate.generate_statistics 才會有統計資料
+ */
+public class SecondLevelCacheMetrics {
+
+    private final SessionFactory sessionFactory;
+
+    //要統計的快取區域名稱
+    private final String[] regions;
+
+    public SecondLevelCacheMetrics(SessionFactory sessionFactory, String[] regions) {
+        this.sessionFactory = sessionFactory;
+        this.regions = regions.clone();
+    }
+
+    /**
+     * 取得目前的二級快取統計快照
+     *
+     * @return 整體與各區域的命中、未命中次數與命中率
+     */
+    public Map<String, Object> snapshot() {
+        Statistics statistics = sessionFactory.getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("hitCount", statistics.getSecondLevelCacheHitCount());
+        result.put("missCount", statistics.getSecondLevelCacheMissCount());
+        result.put("putCount", statistics.getSecondLevelCachePutCount());
+        result.put("hitRatio", hitRatio(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount()));
+
+        Map<String, Object> regionStats = new LinkedHashMap<>();
+        for (String region : regions) {
+            CacheRegionStatistics stats;
+            try {
+                stats = statistics.getDomainDataRegionStatistics(region);
+            } catch (IllegalArgumentException e) {
+                // 快取未啟用或區域不存在
+                continue;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("hitCount", stats.getHitCount());
+            item.put("missCount", stats.getMissCount());
+            item.put("putCount", stats.getPutCount());
+            item.put("hitRatio", hitRatio(stats.getHitCount(), stats.getMissCount()));
+            item.put("elementCountInMemory", stats.getElementCountInMemory());
+            regionStats.put(region, item);
+        }
+        result.put("regions", regionStats);
+
+        return result;
+    }
+
+    //命中率 = 命中 / (命中 + 未命中)
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分片庫存計數器（限時搶購使用）
+ *
+ * 功能說明：
+ * 1. 庫存平均分成 N 個分片，每個結帳執行緒隨機選一個分片以 CAS 扣除，
+ *    大量執行緒同時搶購同一個商品時不會全部競爭同一個計數器
+ * 2. 選到的分片不足時依序向其他分片扣除，所有分片加起來不足時才算售完
+ * 3. 售完後設定旗標，之後的請求不需要掃描分片就直接拒絕
+ *
+ * 分片之間間隔 PADDING 個 long（128 位元組），不同分片不會落在同一條 CPU 快取線上
+ */
+public class ShardedStockCounter {
+
+    //每個分片佔用的 long 數量（只使用第一個）
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int shards;
+
+    //售完旗標（歸還庫存時清除）
+    private volatile boolean soldOut;
+
+    /**
+     * @param stock 庫存數量
+     * @param shards 分片數量
+     */
+    public ShardedStockCounter(int stock, int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("分片數量必須大於 0");
+        }
+        this.shards = shards;
+        this.cells = new AtomicLongArray(shards * PADDING);
+        // 平均分配，餘數分給前面的分片
+        for (int i = 0; i < shards; i++) {
+            cells.set(i * PADDING, stock / shards + (i < stock % shards ? 1 : 0));
+        }
+        this.soldOut = stock <= 0;
+    }
+
+    /**
+     * 扣除庫存
+     *
+     * @param quantity 數量
+     * @return true 表示已扣除，false 表示庫存不足（不扣除任何數量）
+     */
+    public boolean tryAcquire(int quantity) {
+        if (soldOut) {
+            return false;
+        }
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        // 先嘗試由單一分片扣除全部數量
+        for (int i = 0; i < shards; i++) {
+            if (tryTakeAll((start + i) % shards, quantity)) {
+                return true;
+            }
+        }
+        // 每個分片都不夠時，從多個分片湊齊；湊不齊就全部還回去
+        long taken = 0;
+        for (int i = 0; i < shards && taken < quantity; i++) {
+            taken += tryTake((start + i) % shards, quantity - taken);
+        }
+        if (taken == quantity) {
+            return true;
+        }
+        // 湊不齊時還回去（透過 release 清除售完旗標：其他執行緒可能在我們持有這些數量時看到 0 而設定售完）
+        if (taken > 0) {
+            release((int) taken);
+        }
+        if (available() == 0) {
+            soldOut = true;
+            // 設定旗標的同時有人歸還庫存時，不能一直維持售完
+            if (available() > 0) {
+                soldOut = false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 歸還庫存
+     *
+     * @param quantity 數量
+     */
+    public void release(int quantity) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        cells.addAndGet(shard * PADDING, quantity);
+        soldOut = false;
+    }
+
+    /**
+     * 目前剩餘的庫存（各分片加總，並行扣除時為近似值）
+     */
+    public long available() {
+        long total = 0;
+        for (int i = 0; i < shards; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    public boolean isSoldOut() {
+        return soldOut;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    //分片足夠時扣除全部數量
+    private boolean tryTakeAll(int shard, long quantity) {
+        int index = shard * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+            if (cells.compareAndSet(index, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    //從分片扣除最多 quantity 個，回傳實際扣除的數量
+    private long tryTake(int shard, long quantity) {
+        int index = shard * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            long take = Math.min(current, quantity);
+            if (cells.compareAndSet(index, current, current - take)) {
+                return take;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.util;
+
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 靜態資源預先壓縮
+ *
+ * 功能說明：
+ * 1. 啟動時掃描靜態資源目錄，為文字類型的檔案（css、js、svg 等）產生 .gz 檔
+ * 2. 原始檔比 .gz 新時重新產生，未變更的檔案不會重複壓縮
+ * 3. 由 EncodedResourceResolver 依瀏覽器的 Accept-Encoding 回傳 .gz（或建置時產生的 .br），
+ *    每次請求不需要即時壓縮
+ *
+ * 圖片（jpg、png、webp）本身已壓縮，不處理
+ */
+public class StaticResourceCompressor implements InitializingBean {
+
+    //要壓縮的副檔名
+    private static final Set<String> COMPRESSIBLE = Set.of(
+            "css", "js", "mjs", "map", "svg", "json", "txt", "html", "xml", "ico");
+
+    //太小的檔案壓縮後省不了多少，反而多一次檔案查詢
+    private static final long MIN_SIZE = 1024;
+
+    private final Path root;
+
+    /**
+     * @param root 靜態資源目錄的實際路徑（null 表示無法取得，例如以 WAR 檔直接執行）
+     */
+    public StaticResourceCompressor(String root) {
+        this.root = root != null ? Paths.get(root) : null;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (root == null || !Files.isDirectory(root)) {
+            System.out.println("○ 靜態資源目錄不存在，略過預先壓縮：" + root);
+            return;
+        }
+        int compressed = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isCompressible(file) && compress(file)) {
+                    compressed++;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("❌ 靜態資源預先壓縮失敗：" + e.getMessage());
+            return;
+        }
+        System.out.println("✓ 靜態資源預先壓縮完成：" + compressed + " 個檔案");
+    }
+
+    private boolean isCompressible(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < MIN_SIZE) {
+            return false;
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && COMPRESSIBLE.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 產生 .gz 檔（先寫入暫存檔再改名，請求不會讀到寫到一半的檔案）
+     *
+     * @return true 表示有重新產生
+     */
+    private boolean compress(Path file) throws IOException {
+        Path gzip = file.resolveSibling(file.getFileName() + ".gz");
+        if (Files.exists(gzip)
+                && Files.getLastModifiedTime(gzip).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+            return false;
+        }
+        Path temp = file.resolveSibling(gzip.getFileName() + ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp)) {
+                     {
+                         def.setLevel(Deflater.BEST_COMPRESSION);
+                     }
+                 }) {
+                in.transferTo(out);
+            }
+            Files.move(temp, gzip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+}
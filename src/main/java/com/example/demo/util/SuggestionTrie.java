@@ -0,0 +1,340 @@
+package com.example.demo.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 自動完成用的字首樹（Trie）
+ *
+ * 功能說明：
+ * 1. 每個字元一個節點，子節點以排序好的 char 陣列存放（二分搜尋），比 HashMap 省記憶體
+ * 2. 每個節點預先記錄「以此字首開頭、權重最高的前 K 筆」，查詢時只需走完字首，不需走訪子樹
+ * 3. 權重增加（例如銷量）時只更新字首路徑上的節點；刪除或權重減少時，
+ *    由下往上以子節點的前 K 筆重新合併
+ *
+ * 比對前會做 NFKC 正規化並轉小寫（與 SearchTokenizer 相同），全形、大小寫都能比對
+ *
+ * 多執行緒：查詢使用讀鎖，新增、修改、刪除使用寫鎖
+ */
+public class SuggestionTrie {
+
+    //排序：權重高的在前，權重相同時依名稱、編號
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong((Suggestion s) -> s.weight).reversed()
+            .thenComparing(s -> s.text)
+            .thenComparing(s -> s.id);
+
+    //每個節點保留的筆數（查詢時最多回傳這麼多筆）
+    private final int maxSuggestions;
+
+    private final Node root = new Node();
+
+    //編號 → 目前的項目（更新、刪除時找到舊的字首路徑）
+    private final Map<Long, Suggestion> entries = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SuggestionTrie(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * 新增或更新項目
+     *
+     * @param id 項目編號（例如產品編號）
+     * @param text 顯示文字（例如產品名稱）
+     * @param weight 權重（例如銷量）
+     */
+    public void put(Long id, String text, long weight) {
+        if (text == null || normalize(text).isEmpty()) {
+            remove(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = entries.get(id);
+            Suggestion suggestion = new Suggestion(id, text, normalize(text), weight);
+            if (previous != null && previous.key.equals(suggestion.key) && previous.weight <= weight) {
+                // 字首相同且權重沒有減少：沿路徑替換即可，不會有其他項目被擠進前 K 筆
+                entries.put(id, suggestion);
+                List<Node> path = path(suggestion.key, false);
+                path.get(path.size() - 1).terminals.put(id, suggestion);
+                for (Node node : path) {
+                    node.offer(suggestion, maxSuggestions);
+                }
+                return;
+            }
+            if (previous != null) {
+                removeInternal(previous);
+            }
+            entries.put(id, suggestion);
+            List<Node> path = path(suggestion.key, true);
+            path.get(path.size() - 1).terminals.put(id, suggestion);
+            for (Node node : path) {
+                node.offer(suggestion, maxSuggestions);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新項目的顯示文字，保留目前的權重（新項目權重為 0）
+     *
+     * @param id 項目編號
+     * @param text 顯示文字
+     */
+    public void putText(Long id, String text) {
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = entries.get(id);
+            put(id, text, previous != null ? previous.weight : 0L);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 增加項目的權重（例如商品售出時增加銷量）
+     *
+     * @param id 項目編號
+     * @param delta 增加的權重
+     */
+    public void addWeight(Long id, long delta) {
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = entries.get(id);
+            if (previous != null) {
+                put(id, previous.text, previous.weight + delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 刪除項目（不存在時不做任何事）
+     *
+     * @param id 項目編號
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = entries.remove(id);
+            if (previous != null) {
+                removeInternal(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 取得以字首開頭、權重最高的項目文字
+     *
+     * @param prefix 使用者輸入的字首
+     * @param limit 最多回傳幾筆（不超過建立時的 maxSuggestions）
+     * @return 項目文字 List（相同文字只出現一次）
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            List<String> results = new ArrayList<>(Math.min(limit, node.top.size()));
+            for (Suggestion suggestion : node.top) {
+                if (results.size() >= limit) {
+                    break;
+                }
+                if (!results.contains(suggestion.text)) {
+                    results.add(suggestion.text);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取得項目數
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //從字首路徑移除項目，由下往上重新合併前 K 筆並刪除空節點
+    private void removeInternal(Suggestion suggestion) {
+        List<Node> path = path(suggestion.key, false);
+        if (path.size() != suggestion.key.length() + 1) {
+            return;
+        }
+        path.get(path.size() - 1).terminals.remove(suggestion.id);
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            if (depth > 0 && node.isEmpty()) {
+                path.get(depth - 1).removeChild(suggestion.key.charAt(depth - 1));
+                continue;
+            }
+            if (node.top.contains(suggestion)) {
+                node.rebuildTop(maxSuggestions);
+            }
+        }
+    }
+
+    //取得從根節點到字首結尾的節點路徑（create 為 false 時遇到不存在的節點就停止）
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.child(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    break;
+                }
+                next = node.addChild(key.charAt(i));
+            }
+            node = next;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    // ========== 內部類別 ==========
+
+    //一筆自動完成項目
+    private static final class Suggestion {
+        private final Long id;
+        private final String text;
+        private final String key;
+        private final long weight;
+
+        private Suggestion(Long id, String text, String key, long weight) {
+            this.id = id;
+            this.text = text;
+            this.key = key;
+            this.weight = weight;
+        }
+
+        //同一個編號視為同一筆（更新時用來替換舊的項目）
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Suggestion && ((Suggestion) o).id.equals(id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+
+    //字首樹節點
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        //子節點（keys 已排序，與 children 一一對應）
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+
+        //在此節點結束的項目（名稱正好等於此字首）
+        private final Map<Long, Suggestion> terminals = new LinkedHashMap<>(2);
+
+        //以此字首開頭、權重最高的前 K 筆（已排序）
+        private List<Suggestion> top = Collections.emptyList();
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char c) {
+            int index = -(Arrays.binarySearch(keys, c) + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = c;
+            newChildren[index] = new Node();
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[index];
+        }
+
+        private void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private boolean isEmpty() {
+            return terminals.isEmpty() && keys.length == 0;
+        }
+
+        //加入（或替換）一筆項目，保留前 K 筆
+        private void offer(Suggestion suggestion, int max) {
+            List<Suggestion> updated = new ArrayList<>(top.size() + 1);
+            for (Suggestion existing : top) {
+                if (!existing.equals(suggestion)) {
+                    updated.add(existing);
+                }
+            }
+            updated.add(suggestion);
+            updated.sort(RANKING);
+            top = updated.size() > max ? new ArrayList<>(updated.subList(0, max)) : updated;
+        }
+
+        //由本節點的項目與子節點的前 K 筆重新合併
+        private void rebuildTop(int max) {
+            List<Suggestion> candidates = new ArrayList<>(terminals.values());
+            for (Node child : children) {
+                candidates.addAll(child.top);
+            }
+            candidates.sort(RANKING);
+            top = candidates.size() > max ? new ArrayList<>(candidates.subList(0, max)) : candidates;
+        }
+    }
+}
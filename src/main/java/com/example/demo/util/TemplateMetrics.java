@@ -0,0 +1,82 @@
+package com.example.demo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thymeleaf 模板統計工具類別
+ *
+ * 功能說明：
+ * 1. 記錄每個 View 的解析時間（啟動預熱時量測）
+ * 2. 記錄每個 View 的渲染次數、平均與最長渲染時間（關閉模板快取時渲染時間包含解析）
+ *
+ * 用途：提供給管理員後台查看，找出解析或渲染特別慢的頁面
+ */
+public class TemplateMetrics {
+
+    //各 View 的統計資料（依 View 名稱）
+    private final Map<String, ViewStats> views = new ConcurrentHashMap<>();
+
+    /**
+     * 記錄解析時間
+     *
+     * @param view View 名稱
+     * @param nanos 解析所花的時間（奈秒）
+     */
+    public void recordParse(String view, long nanos) {
+        stats(view).parseNanos = nanos;
+    }
+
+    /**
+     * 記錄一次渲染
+     *
+     * @param view View 名稱
+     * @param nanos 渲染所花的時間（奈秒）
+     */
+    public void recordRender(String view, long nanos) {
+        ViewStats stats = stats(view);
+        stats.renderCount.increment();
+        stats.renderTotalNanos.add(nanos);
+        stats.renderMaxNanos.accumulate(nanos);
+    }
+
+    /**
+     * 取得目前的模板統計快照
+     *
+     * @return 各 View 的解析時間與渲染次數、平均、最長時間（毫秒）
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        views.forEach((view, stats) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            long count = stats.renderCount.sum();
+            item.put("parseMillis", stats.parseNanos < 0 ? null : toMillis(stats.parseNanos));
+            item.put("renderCount", count);
+            item.put("renderAvgMillis", count == 0 ? 0.0 : toMillis(stats.renderTotalNanos.sum() / count));
+            item.put("renderMaxMillis", toMillis(stats.renderMaxNanos.get()));
+            result.put(view, item);
+        });
+        return result;
+    }
+
+    private ViewStats stats(String view) {
+        return views.computeIfAbsent(view, key -> new ViewStats());
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class ViewStats {
+        //尚未預熱的 View 為 -1
+        private volatile long parseNanos = -1;
+        private final LongAdder renderCount = new LongAdder();
+        private final LongAdder renderTotalNanos = new LongAdder();
+        private final LongAccumulator renderMaxNanos = new LongAccumulator(Math::max, 0);
+    }
+}
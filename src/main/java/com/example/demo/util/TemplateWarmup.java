@@ -0,0 +1,79 @@
+package com.example.demo.util;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import javax.servlet.ServletContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Thymeleaf 模板預熱
+ *
+ * 功能說明：
+ * 1. 啟動時列出 views 目錄下所有模板（包含子目錄，例如 admin/dashboard）
+ * 2. 逐一解析並存入 Thymeleaf 的模板快取，第一個使用者不需等待解析
+ * 3. 記錄每個模板的解析時間到 TemplateMetrics
+ *
+ * 只解析不執行：processThrottled 解析完成後會存入快取，不呼叫 process 就不會執行模板內的運算式
+ */
+public class TemplateWarmup implements InitializingBean {
+
+    private final ITemplateEngine templateEngine;
+    private final ServletContext servletContext;
+    private final TemplateMetrics templateMetrics;
+    private final String prefix;
+    private final String suffix;
+
+    /**
+     * @param prefix 模板目錄（與 templateResolver 的 prefix 相同，例如 /WEB-INF/views/）
+     * @param suffix 模板副檔名（與 templateResolver 的 suffix 相同，例如 .html）
+     */
+    public TemplateWarmup(ITemplateEngine templateEngine, ServletContext servletContext,
+            TemplateMetrics templateMetrics, String prefix, String suffix) {
+        this.templateEngine = templateEngine;
+        this.servletContext = servletContext;
+        this.templateMetrics = templateMetrics;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        List<String> views = new ArrayList<>();
+        collectViews(prefix, views);
+
+        long start = System.nanoTime();
+        int parsed = 0;
+        for (String view : views) {
+            long viewStart = System.nanoTime();
+            try {
+                templateEngine.processThrottled(view, new Context());
+                templateMetrics.recordParse(view, System.nanoTime() - viewStart);
+                parsed++;
+            } catch (Exception e) {
+                // 單一模板有錯誤時不影響啟動，第一次請求時才會顯示錯誤
+                System.out.println("❌ 模板預熱失敗：" + view + "，" + e.getMessage());
+            }
+        }
+        System.out.println("✓ 模板預熱完成：" + parsed + "/" + views.size() + " 個模板，"
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    //遞迴列出目錄下的模板，轉成 View 名稱（去掉 prefix 與 suffix）
+    private void collectViews(String path, List<String> views) {
+        Set<String> paths = servletContext.getResourcePaths(path);
+        if (paths == null) {
+            return;
+        }
+        for (String child : paths) {
+            if (child.endsWith("/")) {
+                collectViews(child, views);
+            } else if (child.endsWith(suffix)) {
+                views.add(child.substring(prefix.length(), child.length() - suffix.length()));
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 交易回呼工具類別
+ *
+ * 用於記憶體快取、索引等在資料異動後要更新的狀態：
+ * 等交易提交後才更新，交易回滾時不會套用；不在交易中時立即執行
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * 在目前交易提交後執行
+     *
+     * @param action 要執行的動作
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 在目前交易回滾後執行（用於還原交易中已先套用的記憶體狀態）
+     * 不在交易中時不執行
+     *
+     * @param action 要執行的動作
+     */
+    public static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
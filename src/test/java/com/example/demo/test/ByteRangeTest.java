@@ -0,0 +1,41 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import com.example.demo.util.ByteRange;
+public class ByteRangeTest {
+   @Test
+   public void testClosedRange() {
+       ByteRange range = ByteRange.parse("bytes=100-199", 1000);
+       assertEquals(100, range.getStart());
+       assertEquals(199, range.getEnd());
+       assertEquals(100, range.getLength());
+       assertEquals("bytes 100-199/1000", range.toContentRange(1000));
+   }
+   @Test
+   public void testOpenAndSuffixRanges() {
+       assertEquals(999, ByteRange.parse("bytes=100-", 1000).getEnd());
+       assertEquals(999, ByteRange.parse("bytes=100-5000", 1000).getEnd());
+       ByteRange suffix = ByteRange.parse("bytes=-500", 1000);
+       assertEquals(500, suffix.getStart());
+       assertEquals(999, suffix.getEnd());
+       assertEquals(0, ByteRange.parse("bytes=-5000", 1000).getStart());
+   }
+   @Test
+   public void testUnsatisfiable() {
+       assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", 1000));
+       assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 1000));
+       assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-500", 0));
+       assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=0-", 0));
+   }
+   @Test
+   public void testFullContent() {
+       assertNull(ByteRange.parse(null, 1000));
+       assertNull(ByteRange.parse("items=0-1", 1000));
+       assertNull(ByteRange.parse("bytes=0-9,20-29", 1000));
+       assertNull(ByteRange.parse("bytes=abc", 1000));
+       assertNull(ByteRange.parse("bytes=200-100", 1000));
+   }
+}
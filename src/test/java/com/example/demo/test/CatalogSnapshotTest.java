@@ -0,0 +1,119 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import com.example.demo.model.CatalogSnapshot;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductCursor;
+public class CatalogSnapshotTest {
+   private CatalogSnapshot snapshot;
+   @Before
+   public void setUp() {
+       snapshot = CatalogSnapshot.of(Arrays.asList(
+               product(3L, "C", "3C", "300"),
+               product(1L, "A", "3C", "100"),
+               product(2L, "B", "服飾", "100"),
+               product(4L, "D", "服飾", "50")));
+   }
+   @Test
+   public void testPrecomputedOrders() {
+       assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(snapshot.list(null, null)));
+       // 價格相同時依產品編號
+       assertEquals(Arrays.asList(4L, 1L, 2L, 3L), ids(snapshot.list(null, "price_asc")));
+       assertEquals(Arrays.asList(3L, 2L, 1L, 4L), ids(snapshot.list(null, "price_desc")));
+       assertEquals(Arrays.asList(4L, 2L), ids(snapshot.list("服飾", "name_desc")));
+       assertEquals(0, snapshot.list("不存在", null).size());
+   }
+   @Test
+   public void testPageAfterCursor() {
+       List<Product> first = snapshot.pageAfter(null, "price_desc", null, 2);
+       assertEquals(Arrays.asList(3L, 2L), ids(first));
+       ProductCursor cursor = ProductCursor.after(first.get(1), "price_desc");
+       assertEquals(Arrays.asList(1L, 4L), ids(snapshot.pageAfter(null, "price_desc", cursor, 2)));
+       // 格式不符的游標視為第一頁
+       ProductCursor invalid = new ProductCursor("abc", 2L);
+       assertEquals(Arrays.asList(4L, 1L), ids(snapshot.pageAfter(null, "price_asc", invalid, 2)));
+   }
+   @Test
+   public void testSortedSearchResults() {
+       // 搜尋結果（依相關程度）整份依價格排序，不存在的產品略過
+       List<Long> hits = Arrays.asList(3L, 99L, 4L, 1L);
+       assertEquals(Arrays.asList(4L, 1L, 3L), ids(snapshot.sorted(hits, "price_asc")));
+       List<Product> first = snapshot.sortedPageAfter(hits, "price_desc", null, 2);
+       assertEquals(Arrays.asList(3L, 1L), ids(first));
+       ProductCursor cursor = ProductCursor.after(first.get(1), "price_desc");
+       assertEquals(Arrays.asList(4L), ids(snapshot.sortedPageAfter(hits, "price_desc", cursor, 2)));
+   }
+   @Test
+   public void testNameOrderIgnoresCase() {
+       CatalogSnapshot mixed = CatalogSnapshot.of(Arrays.asList(
+               product(1L, "banana", "3C", "100"),
+               product(2L, "Apple", "3C", "100"),
+               product(3L, "apple", "3C", "100"),
+               product(4L, "Cherry", "3C", "100")));
+       // 名稱只差大小寫時依產品編號，與資料庫的排序相同
+       assertEquals(Arrays.asList(2L, 3L, 1L, 4L), ids(mixed.list(null, "name_asc")));
+   }
+   @Test
+   public void testCopyOnWrite() {
+       CatalogSnapshot updated = snapshot.with(product(1L, "A", "3C", "10"))
+               .with(product(5L, "E", "3C", "500"))
+               .without(3L);
+       assertEquals(Arrays.asList(1L, 4L, 2L, 5L), ids(updated.list(null, "price_asc")));
+       assertEquals(Arrays.asList(1L, 5L), ids(updated.list("3C", null)));
+       assertNull(updated.get(3L));
+       // 原快照不受影響
+       assertEquals(Arrays.asList(4L, 1L, 2L, 3L), ids(snapshot.list(null, "price_asc")));
+   }
+   @Test
+   public void testVersionChangesOnEveryWrite() {
+       CatalogSnapshot updated = snapshot.with(product(1L, "A", "3C", "10"));
+       assertNotEquals(snapshot.getVersionTag(), updated.getVersionTag());
+       assertEquals(snapshot.getLoadedAt(), updated.getLoadedAt());
+       assertTrue(updated.getLastModified() >= snapshot.getLastModified());
+       CatalogSnapshot deleted = updated.without(3L);
+       assertNotEquals(updated.getVersionTag(), deleted.getVersionTag());
+       // 刪除不存在的產品不算異動
+       assertSame(deleted, deleted.without(99L));
+   }
+   @Test
+   public void testIncrementalUpdatesMatchFullSort() {
+       // 隨機新增、修改（含改類型）、刪除，每次都與重新排序的快照比較
+       Random random = new Random(42);
+       String[] types = {"3C", "服飾", "書籍"};
+       CatalogSnapshot updated = snapshot;
+       for (int i = 0; i < 500; i++) {
+           long id = 1 + random.nextInt(40);
+           if (random.nextInt(4) == 0) {
+               updated = updated.without(id);
+           } else {
+               updated = updated.with(product(id, "N" + random.nextInt(10), types[random.nextInt(types.length)],
+                       String.valueOf(random.nextInt(5) * 100)));
+           }
+           CatalogSnapshot expected = CatalogSnapshot.of(updated.list(null, null));
+           for (String type : new String[] {null, "3C", "服飾", "書籍"}) {
+               for (String sort : new String[] {null, "price_asc", "price_desc", "name_asc", "name_desc"}) {
+                   assertEquals(ids(expected.list(type, sort)), ids(updated.list(type, sort)));
+               }
+           }
+       }
+   }
+   private static Product product(Long id, String name, String type, String price) {
+       Product product = new Product(name, type, new BigDecimal(price), null, null, null);
+       product.setProdNum(id);
+       return product;
+   }
+   private static List<Long> ids(List<Product> products) {
+       return products.stream().map(Product::getProdNum).collect(Collectors.toList());
+   }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import com.example.demo.util.EventRingBuffer;
+public class EventRingBufferTest {
+   private static void publish(EventRingBuffer<AtomicLong> ring, long value) {
+       long sequence = ring.tryClaim();
+       assertTrue(sequence >= 0);
+       ring.get(sequence).set(value);
+       ring.publish(sequence);
+   }
+   @Test
+   public void testConsumerReceivesBatchInOrder() {
+       EventRingBuffer<AtomicLong> ring = new EventRingBuffer<>(8, AtomicLong::new);
+       EventRingBuffer.Consumer consumer = ring.addConsumer("test");
+       for (long i = 1; i <= 5; i++) {
+           publish(ring, i);
+       }
+       assertEquals(5, ring.lag(consumer));
+       List<Long> values = new ArrayList<>();
+       List<Boolean> ends = new ArrayList<>();
+       assertEquals(5, ring.poll(consumer, (event, sequence, endOfBatch) -> {
+           values.add(event.get());
+           ends.add(endOfBatch);
+       }, 100));
+       assertEquals(List.of(1L, 2L, 3L, 4L, 5L), values);
+       assertEquals(List.of(false, false, false, false, true), ends);
+       assertEquals(0, ring.lag(consumer));
+       assertEquals(0, ring.poll(consumer, (event, sequence, endOfBatch) -> { }, 100));
+   }
+   @Test
+   public void testFullBufferDropsInsteadOfOverwriting() {
+       EventRingBuffer<AtomicLong> ring = new EventRingBuffer<>(4, AtomicLong::new);
+       EventRingBuffer.Consumer consumer = ring.addConsumer("slow");
+       for (long i = 1; i <= 4; i++) {
+           publish(ring, i);
+       }
+       assertEquals(-1, ring.tryClaim());
+       assertEquals(1, ring.getDropped());
+       // 處理兩個後空出兩個位置
+       assertEquals(2, ring.poll(consumer, (event, sequence, endOfBatch) -> { }, 2));
+       publish(ring, 5);
+       publish(ring, 6);
+       List<Long> values = new ArrayList<>();
+       ring.poll(consumer, (event, sequence, endOfBatch) -> values.add(event.get()), 100);
+       assertEquals(List.of(3L, 4L, 5L, 6L), values);
+   }
+   @Test
+   public void testStopsAtUnpublishedSlot() {
+       EventRingBuffer<AtomicLong> ring = new EventRingBuffer<>(8, AtomicLong::new);
+       EventRingBuffer.Consumer consumer = ring.addConsumer("test");
+       publish(ring, 1);
+       long pending = ring.tryClaim();
+       publish(ring, 3);
+       List<Long> values = new ArrayList<>();
+       assertEquals(1, ring.poll(consumer, (event, sequence, endOfBatch) -> values.add(event.get()), 100));
+       ring.get(pending).set(2);
+       ring.publish(pending);
+       assertEquals(2, ring.poll(consumer, (event, sequence, endOfBatch) -> values.add(event.get()), 100));
+       assertEquals(List.of(1L, 2L, 3L), values);
+   }
+   @Test
+   public void testConcurrentPublishers() throws Exception {
+       EventRingBuffer<AtomicLong> ring = new EventRingBuffer<>(1024, AtomicLong::new);
+       EventRingBuffer.Consumer consumer = ring.addConsumer("test");
+       int threads = 4;
+       int perThread = 10000;
+       List<Thread> publishers = new ArrayList<>();
+       for (int t = 0; t < threads; t++) {
+           Thread thread = new Thread(() -> {
+               for (int i = 0; i < perThread; i++) {
+                   long sequence;
+                   while ((sequence = ring.tryClaim()) < 0) {
+                       Thread.yield();
+                   }
+                   ring.get(sequence).set(1);
+                   ring.publish(sequence);
+               }
+           });
+           publishers.add(thread);
+           thread.start();
+       }
+       AtomicLong sum = new AtomicLong();
+       long expected = (long) threads * perThread;
+       while (sum.get() < expected) {
+           ring.poll(consumer, (event, sequence, endOfBatch) -> sum.addAndGet(event.get()), 256);
+       }
+       for (Thread thread : publishers) {
+           thread.join();
+       }
+       assertEquals(expected, sum.get());
+       assertEquals(0, ring.lag(consumer));
+   }
+}
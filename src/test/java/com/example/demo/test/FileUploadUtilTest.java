@@ -0,0 +1,54 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockMultipartFile;
+import com.example.demo.util.FileUploadUtil;
+public class FileUploadUtilTest {
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+   @Test
+   public void testContentAddressedName() throws Exception {
+       String dir = folder.getRoot().getAbsolutePath();
+       String name = FileUploadUtil.saveFile(image("a.JPG", "hello"), dir);
+       // SHA-256("hello")
+       assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824.jpg", name);
+       assertEquals("hello", new String(Files.readAllBytes(new File(dir, name).toPath()), StandardCharsets.UTF_8));
+   }
+   @Test
+   public void testIdenticalImagesStoredOnce() throws Exception {
+       String dir = folder.getRoot().getAbsolutePath();
+       String first = FileUploadUtil.saveFile(image("a.png", "same"), dir);
+       String second = FileUploadUtil.saveFile(image("b.png", "same"), dir);
+       assertEquals(first, second);
+       // 不會留下暫存檔
+       assertEquals(1, folder.getRoot().list().length);
+   }
+   @Test
+   public void testOversizedStreamRejected() throws Exception {
+       // 宣告的大小可能與實際內容不同，寫入時再檢查一次
+       MockMultipartFile file = new MockMultipartFile("imageFile", "big.jpg", "image/jpeg",
+               new byte[5 * 1024 * 1024 + 1]) {
+           @Override
+           public long getSize() {
+               return 1;
+           }
+       };
+       try {
+           FileUploadUtil.saveFile(file, folder.getRoot().getAbsolutePath());
+           fail();
+       } catch (IllegalArgumentException e) {
+           assertTrue(folder.getRoot().list().length == 0);
+       }
+   }
+   private static MockMultipartFile image(String filename, String content) {
+       return new MockMultipartFile("imageFile", filename, "image/jpeg", content.getBytes(StandardCharsets.UTF_8));
+   }
+}
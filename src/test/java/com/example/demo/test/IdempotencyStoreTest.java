@@ -0,0 +1,121 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import com.example.demo.util.IdempotencyStore;
+public class IdempotencyStoreTest {
+   @Test
+   public void testRepeatReturnsFirstResult() {
+       IdempotencyStore<Long> store = new IdempotencyStore<>(100, 60000);
+       AtomicInteger calls = new AtomicInteger();
+       assertEquals(Long.valueOf(1), store.execute("1:a", () -> (long) calls.incrementAndGet()));
+       assertEquals(Long.valueOf(1), store.execute("1:a", () -> (long) calls.incrementAndGet()));
+       assertEquals(Long.valueOf(2), store.execute("2:a", () -> (long) calls.incrementAndGet()));
+       assertEquals(2, calls.get());
+   }
+   @Test
+   public void testFailureIsNotRemembered() {
+       IdempotencyStore<Long> store = new IdempotencyStore<>(100, 60000);
+       try {
+           store.execute("1:a", () -> {
+               throw new RuntimeException("庫存不足");
+           });
+           fail();
+       } catch (RuntimeException e) {
+           assertEquals("庫存不足", e.getMessage());
+       }
+       assertEquals(Long.valueOf(7), store.execute("1:a", () -> 7L));
+   }
+   @Test
+   public void testConcurrentDuplicatesWaitForFirst() throws Exception {
+       IdempotencyStore<Long> store = new IdempotencyStore<>(100, 60000);
+       AtomicInteger calls = new AtomicInteger();
+       CountDownLatch running = new CountDownLatch(1);
+       CountDownLatch release = new CountDownLatch(1);
+       ExecutorService executor = Executors.newFixedThreadPool(4);
+       try {
+           Future<Long> first = executor.submit(() -> store.execute("1:a", () -> {
+               calls.incrementAndGet();
+               running.countDown();
+               try {
+                   release.await();
+               } catch (InterruptedException e) {
+                   throw new RuntimeException(e);
+               }
+               return 42L;
+           }));
+           running.await();
+           Future<Long> second = executor.submit(() -> store.execute("1:a", () -> (long) calls.incrementAndGet()));
+           Future<Long> third = executor.submit(() -> store.execute("1:a", () -> (long) calls.incrementAndGet()));
+           release.countDown();
+           assertEquals(Long.valueOf(42), first.get(5, TimeUnit.SECONDS));
+           assertEquals(Long.valueOf(42), second.get(5, TimeUnit.SECONDS));
+           assertEquals(Long.valueOf(42), third.get(5, TimeUnit.SECONDS));
+           assertEquals(1, calls.get());
+       } finally {
+           executor.shutdownNow();
+       }
+   }
+   @Test
+   public void testTimedOutWaitKeepsPendingEntry() throws Exception {
+       IdempotencyStore<Long> store = new IdempotencyStore<>(100, 60000);
+       AtomicInteger calls = new AtomicInteger();
+       CompletableFuture<Long> pipeline = new CompletableFuture<>();
+       CompletableFuture<Long> first = store.executeAsync("1:a", () -> {
+           calls.incrementAndGet();
+           return pipeline;
+       });
+       try {
+           first.get(10, TimeUnit.MILLISECONDS);
+           fail();
+       } catch (TimeoutException e) {
+           // 訂單仍在排隊
+       }
+       // 逾時後重送：等待同一筆訂單，不會再送出一次
+       CompletableFuture<Long> retry = store.executeAsync("1:a", () -> {
+           calls.incrementAndGet();
+           return CompletableFuture.completedFuture(99L);
+       });
+       assertSame(first, retry);
+       pipeline.complete(42L);
+       assertEquals(Long.valueOf(42), retry.get(5, TimeUnit.SECONDS));
+       assertEquals(Long.valueOf(42), store.execute("1:a", () -> (long) calls.incrementAndGet()));
+       assertEquals(1, calls.get());
+   }
+   @Test
+   public void testAsyncFailureIsNotRemembered() throws Exception {
+       IdempotencyStore<Long> store = new IdempotencyStore<>(100, 60000);
+       CompletableFuture<Long> pipeline = new CompletableFuture<>();
+       CompletableFuture<Long> first = store.executeAsync("1:a", () -> pipeline);
+       pipeline.completeExceptionally(new RuntimeException("庫存不足"));
+       try {
+           first.join();
+           fail();
+       } catch (RuntimeException e) {
+           assertEquals("庫存不足", e.getCause().getMessage());
+       }
+       assertEquals(Long.valueOf(7), store.execute("1:a", () -> 7L));
+   }
+   @Test
+   public void testBoundedAndExpiring() throws Exception {
+       IdempotencyStore<Long> store = new IdempotencyStore<>(2, 50);
+       store.execute("a", () -> 1L);
+       store.execute("b", () -> 2L);
+       store.execute("c", () -> 3L);
+       assertEquals(2, store.size());
+       // 最舊的 a 已被移除，重新執行
+       assertEquals(Long.valueOf(9), store.execute("a", () -> 9L));
+       Thread.sleep(100);
+       assertEquals(Long.valueOf(8), store.execute("c", () -> 8L));
+   }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.example.demo.util.ImageVariantGenerator;
+public class ImageVariantGeneratorTest {
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+   @Test
+   public void testGeneratesScaledJpegs() throws Exception {
+       Path source = image("abc.png", 1600, 1200);
+       assertEquals(Arrays.asList(320, 640), ImageVariantGenerator.generate(source, new int[] {320, 640}));
+       BufferedImage thumbnail = ImageIO.read(source.resolveSibling("abc-w320.jpg").toFile());
+       assertEquals(320, thumbnail.getWidth());
+       assertEquals(240, thumbnail.getHeight());
+       assertEquals(640, ImageIO.read(source.resolveSibling("abc-w640.jpg").toFile()).getWidth());
+   }
+   @Test
+   public void testLargeImageIsSubsampledAndLeavesNoTempFiles() throws Exception {
+       Path source = image("large.png", 4000, 3000);
+       assertEquals(Arrays.asList(320), ImageVariantGenerator.generate(source, new int[] {320}));
+       BufferedImage thumbnail = ImageIO.read(source.resolveSibling("large-w320.jpg").toFile());
+       assertEquals(320, thumbnail.getWidth());
+       assertEquals(240, thumbnail.getHeight());
+       try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+           assertEquals(2, files.count());
+       }
+   }
+   @Test
+   public void testNarrowImageIsNotEnlarged() throws Exception {
+       Path source = image("small.png", 200, 100);
+       ImageVariantGenerator.generate(source, new int[] {320});
+       assertEquals(200, ImageIO.read(source.resolveSibling("small-w320.jpg").toFile()).getWidth());
+   }
+   @Test
+   public void testUnreadableImageProducesNothing() throws Exception {
+       Path source = folder.newFile("broken.webp").toPath();
+       Files.write(source, new byte[] {1, 2, 3});
+       assertTrue(ImageVariantGenerator.generate(source, new int[] {320}).isEmpty());
+   }
+   @Test
+   public void testDeleteRemovesVariants() throws Exception {
+       Path source = image("abc.png", 800, 600);
+       ImageVariantGenerator.generate(source, new int[] {320, 640});
+       ImageVariantGenerator.delete(source, new int[] {320, 640});
+       assertFalse(Files.exists(source.resolveSibling("abc-w320.jpg")));
+       assertFalse(Files.exists(source.resolveSibling("abc-w640.jpg")));
+       assertTrue(Files.exists(source));
+   }
+   private Path image(String name, int width, int height) throws Exception {
+       File file = folder.newFile(name);
+       ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", file);
+       return file.toPath();
+   }
+}
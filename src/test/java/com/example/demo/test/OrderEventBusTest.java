@@ -0,0 +1,65 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEvent;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderEventListener;
+import com.example.demo.service.impl.OrderEventBusImpl;
+public class OrderEventBusTest {
+   private OrderEventBusImpl bus;
+   @After
+   public void tearDown() {
+       if (bus != null) {
+           bus.destroy();
+       }
+   }
+   @Test
+   public void testListenerErrorDoesNotStopWorker() throws Exception {
+       List<Long> received = new CopyOnWriteArrayList<>();
+       OrderEventListener listener = (event, endOfBatch) -> {
+           received.add(event.getOrderId());
+           if (event.getOrderId() == 1L) {
+               throw new AssertionError("監聽器錯誤");
+           }
+       };
+       bus = new OrderEventBusImpl();
+       ReflectionTestUtils.setField(bus, "listeners", List.of(listener));
+       ReflectionTestUtils.setField(bus, "env", new MockEnvironment()
+               .withProperty("order.events.bufferSize", "4"));
+       bus.afterPropertiesSet();
+       // 緩衝區只有 4 個位置：監聽器的執行緒如果因為 Error 結束，之後的事件會全部被捨棄
+       for (long orderId = 1; orderId <= 20; orderId++) {
+           bus.publishAfterCommit(OrderEvent.Type.ORDER_CREATED, order(orderId), null);
+           long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+           while (received.size() < orderId && System.nanoTime() < deadline) {
+               Thread.sleep(1);
+           }
+       }
+       List<Long> expected = new ArrayList<>();
+       for (long orderId = 1; orderId <= 20; orderId++) {
+           expected.add(orderId);
+       }
+       assertEquals(expected, received);
+       Map<String, Object> snapshot = bus.snapshot();
+       assertEquals(0L, snapshot.get("dropped"));
+       @SuppressWarnings("unchecked")
+       Map<String, Object> consumer = ((List<Map<String, Object>>) snapshot.get("consumers")).get(0);
+       assertEquals(1L, consumer.get("errors"));
+   }
+   private static Order order(long orderId) {
+       Order order = new Order();
+       order.setOrderId(orderId);
+       order.setOrderStatus(OrderStatus.PENDING_PAYMENT);
+       return order;
+   }
+}
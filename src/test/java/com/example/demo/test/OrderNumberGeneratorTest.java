@@ -0,0 +1,63 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import com.example.demo.service.OrderNumberGenerator;
+import com.example.demo.service.impl.SnowflakeOrderNumberGenerator;
+public class OrderNumberGeneratorTest {
+   @Test
+   public void testConcurrentOrderNumbersAreUnique() throws InterruptedException {
+       OrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1);
+       int threads = 8;
+       int perThread = 20000;
+       Set<String> numbers = ConcurrentHashMap.newKeySet();
+       CountDownLatch start = new CountDownLatch(1);
+       ExecutorService executor = Executors.newFixedThreadPool(threads);
+       for (int t = 0; t < threads; t++) {
+           executor.submit(() -> {
+               start.await();
+               for (int i = 0; i < perThread; i++) {
+                   numbers.add(generator.nextOrderNumber());
+               }
+               return null;
+           });
+       }
+       start.countDown();
+       executor.shutdown();
+       assertTrue("產生訂單編號逾時", executor.awaitTermination(30, TimeUnit.SECONDS));
+       // 同一毫秒內大量產生也不能有重複的編號
+       assertEquals("訂單編號重複", threads * perThread, numbers.size());
+   }
+   @Test
+   public void testDifferentNodesNeverCollide() {
+       String node1 = new SnowflakeOrderNumberGenerator(1).nextOrderNumber();
+       String node2 = new SnowflakeOrderNumberGenerator(2).nextOrderNumber();
+       // 格式：ORD + 17 位時間 + 4 位節點 + 4 位流水號
+       assertEquals(28, node1.length());
+       assertTrue(node1.startsWith("ORD"));
+       assertEquals("0001", node1.substring(20, 24));
+       assertEquals("0002", node2.substring(20, 24));
+       assertTrue(!node1.equals(node2));
+   }
+   @Test
+   public void testTimestampIsUtc() {
+       Instant before = Instant.now();
+       String number = new SnowflakeOrderNumberGenerator(1).nextOrderNumber();
+       Instant timestamp = ZonedDateTime.parse(number.substring(3, 20),
+               DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC)).toInstant();
+       // 不受系統時區影響（日光節約時間結束時也不會重複）
+       assertTrue(Duration.between(before, timestamp).abs().getSeconds() < 5);
+   }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderService;
+import com.example.demo.service.impl.OrderPlacementPipeline;
+public class OrderPlacementPipelineTest {
+   private OrderPlacementPipeline pipeline;
+   @After
+   public void tearDown() {
+       if (pipeline != null) {
+           pipeline.destroy();
+       }
+   }
+   @Test
+   public void testFailedOrderDoesNotAffectOthersInBatch() throws Exception {
+       FakeOrders orders = new FakeOrders();
+       orders.failing.add(2L);
+       pipeline = start(orders, "4", "500", "1000", "2000");
+       List<CompletableFuture<Order>> results = new ArrayList<>();
+       for (long customerId = 1; customerId <= 4; customerId++) {
+           results.add(submit(customerId));
+       }
+       assertEquals(Long.valueOf(1), get(results.get(0)).getOrderId());
+       assertEquals("庫存不足", failure(results.get(1)).getMessage());
+       assertEquals(Long.valueOf(3), get(results.get(2)).getOrderId());
+       assertEquals(Long.valueOf(4), get(results.get(3)).getOrderId());
+       // 每筆成功的訂單只提交一次，失敗的不提交
+       assertEquals(List.of(1L, 3L, 4L), orders.sortedCommitted());
+       assertTrue(orders.rollbacks.get() >= 1);
+   }
+   @Test
+   public void testRejectsWhenQueueIsFull() throws Exception {
+       FakeOrders orders = new FakeOrders();
+       orders.blockCustomer = 1L;
+       pipeline = start(orders, "1", "0", "1", "50");
+       CompletableFuture<Order> first = submit(1L);
+       assertTrue(orders.entered.await(5, TimeUnit.SECONDS));
+       // 寫入執行緒卡在第一筆：第二筆佔滿佇列，第三筆等待 offerTimeoutMillis 後被拒絕
+       CompletableFuture<Order> second = submit(2L);
+       CompletableFuture<Order> third = submit(3L);
+       assertEquals("目前結帳人數過多，請稍後再試", failure(third).getMessage());
+       orders.release.countDown();
+       assertEquals(Long.valueOf(1), get(first).getOrderId());
+       assertEquals(Long.valueOf(2), get(second).getOrderId());
+       assertEquals(List.of(1L, 2L), orders.sortedCommitted());
+   }
+   @Test
+   public void testShutdownFailsPartlyCollectedBatch() throws Exception {
+       FakeOrders orders = new FakeOrders();
+       pipeline = start(orders, "10", "10000", "100", "50");
+       CompletableFuture<Order> first = submit(1L);
+       CompletableFuture<Order> second = submit(2L);
+       // 等寫入執行緒取出兩筆（正在等待湊滿一批）
+       long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+       while ((Integer) pipeline.snapshot().get("queued") > 0 && System.nanoTime() < deadline) {
+           Thread.sleep(10);
+       }
+       pipeline.destroy();
+       assertEquals("系統關閉中，請稍後再試", failure(first).getMessage());
+       assertEquals("系統關閉中，請稍後再試", failure(second).getMessage());
+       assertTrue(failure(submit(3L)).getMessage().contains("請稍後再試"));
+       assertEquals(Collections.emptyList(), orders.sortedCommitted());
+   }
+   private OrderPlacementPipeline start(FakeOrders orders, String batchSize, String lingerMillis,
+                                        String queueSize, String offerTimeoutMillis) {
+       OrderPlacementPipeline result = new OrderPlacementPipeline();
+       MockEnvironment env = new MockEnvironment()
+               .withProperty("order.pipeline.enabled", "true")
+               .withProperty("order.pipeline.batchSize", batchSize)
+               .withProperty("order.pipeline.lingerMillis", lingerMillis)
+               .withProperty("order.pipeline.queueSize", queueSize)
+               .withProperty("order.pipeline.offerTimeoutMillis", offerTimeoutMillis);
+       ReflectionTestUtils.setField(result, "orderService", orders);
+       ReflectionTestUtils.setField(result, "transactionManager", orders.transactionManager);
+       ReflectionTestUtils.setField(result, "env", env);
+       result.afterPropertiesSet();
+       return result;
+   }
+   private CompletableFuture<Order> submit(Long customerId) {
+       return pipeline.submit(customerId, "王小明", "0912345678", "台北市", null);
+   }
+   private static Order get(CompletableFuture<Order> future) throws Exception {
+       return future.get(5, TimeUnit.SECONDS);
+   }
+   private static Throwable failure(CompletableFuture<Order> future) throws Exception {
+       try {
+           future.get(5, TimeUnit.SECONDS);
+       } catch (ExecutionException e) {
+           return e.getCause();
+       }
+       fail("應該失敗");
+       return null;
+   }
+   /**
+    * 模擬交易的 OrderService：交易中建立的訂單在提交時才算建立，回滾時捨棄；
+    * 不在交易中時（單獨執行）視為立即提交
+    */
+   private static class FakeOrders implements OrderService {
+       private final Set<Long> failing = new HashSet<>();
+       private final List<Long> committed = Collections.synchronizedList(new ArrayList<>());
+       private final AtomicInteger rollbacks = new AtomicInteger();
+       private final CountDownLatch entered = new CountDownLatch(1);
+       private final CountDownLatch release = new CountDownLatch(1);
+       private volatile Long blockCustomer;
+       //寫入執行緒目前交易中建立的訂單
+       private List<Long> transaction;
+       private final PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+           @Override
+           public TransactionStatus getTransaction(TransactionDefinition definition) {
+               transaction = new ArrayList<>();
+               return new SimpleTransactionStatus();
+           }
+           @Override
+           public void commit(TransactionStatus status) {
+               committed.addAll(transaction);
+               transaction = null;
+           }
+           @Override
+           public void rollback(TransactionStatus status) {
+               rollbacks.incrementAndGet();
+               transaction = null;
+           }
+       };
+       List<Long> sortedCommitted() {
+           List<Long> result = new ArrayList<>(committed);
+           Collections.sort(result);
+           return result;
+       }
+       @Override
+       public Order createOrderFromCart(Long customerId, String recipientName, String recipientPhone,
+                                        String shippingAddress, String orderNote) {
+           if (customerId.equals(blockCustomer)) {
+               entered.countDown();
+               try {
+                   release.await(5, TimeUnit.SECONDS);
+               } catch (InterruptedException e) {
+                   throw new RuntimeException(e);
+               }
+           }
+           if (failing.contains(customerId)) {
+               throw new RuntimeException("庫存不足");
+           }
+           if (transaction != null) {
+               transaction.add(customerId);
+           } else {
+               committed.add(customerId);
+           }
+           Order order = new Order();
+           order.setOrderId(customerId);
+           return order;
+       }
+       @Override
+       public Order getOrderById(Long orderId) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public Order getOrderByOrderNumber(String orderNumber) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public List<Order> getAllOrders() {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public List<Order> getOrdersByCustomerId(Long customerId) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public List<Order> getOrdersByStatus(OrderStatus status) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public List<Order> getOrdersByStatus(String statusString) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public List<Order> searchOrders(String keyword) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public List<Order> getRecentOrders(int limit) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public long getTotalOrderCount() {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public void updateOrderStatus(Long orderId, String status) {
+           throw new UnsupportedOperationException();
+       }
+       @Override
+       public void cancelOrder(Long orderId) {
+           throw new UnsupportedOperationException();
+       }
+   }
+}
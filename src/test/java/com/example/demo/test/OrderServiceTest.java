@@ -0,0 +1,112 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.config.WebMvcConfig;
+import com.example.demo.dao.OrderDAO;
+import com.example.demo.model.Customer;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderItem;
+import com.example.demo.model.Product;
+import com.example.demo.service.CustomerService;
+import com.example.demo.service.OrderNumberGenerator;
+import com.example.demo.service.OrderService;
+import com.example.demo.service.ProductService;
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { WebMvcConfig.class }) // 包含 Web MVC 配置
+@WebAppConfiguration // 必須加，告訴 Spring 測試用 WebApplicationContext
+public class OrderServiceTest {
+   @Autowired
+   private OrderService orderService;
+   @Autowired
+   private CustomerService customerService;
+   @Autowired
+   private ProductService productService;
+   @Autowired
+   private OrderDAO orderDAO;
+   @Autowired
+   private OrderNumberGenerator orderNumberGenerator;
+   @Autowired
+   private SessionFactory sessionFactory;
+   @Autowired
+   private Environment env;
+   private Statistics statistics;
+   @Before
+   public void setUp() {
+       // 清除二級快取並歸零統計，確保每個測試計算的 SQL 數量一致
+       sessionFactory.getCache().evictAllRegions();
+       statistics = sessionFactory.getStatistics();
+       statistics.setStatisticsEnabled(true);
+       statistics.clear();
+   }
+   @Test
+   public void testAdminOrderListUsesSingleStatement() {
+       List<Order> orders = orderService.getAllOrders();
+       // 模擬 admin/orders 畫面存取的關聯（交易已結束，未載入的關聯會拋出例外）
+       touchOrderPage(orders);
+       assertEquals("管理員訂單列表的 SQL 數量不正確", 1, statistics.getPrepareStatementCount());
+   }
+   @Test
+   public void testMyOrdersUsesFixedStatements() {
+       List<Order> allOrders = orderService.getAllOrders();
+       assumeFalse("資料庫沒有訂單", allOrders.isEmpty());
+       Long customerId = allOrders.get(0).getCustomer().getCustNum();
+       sessionFactory.getCache().evictAllRegions();
+       statistics.clear();
+       List<Order> orders = orderService.getOrdersByCustomerId(customerId);
+       touchOrderPage(orders);
+       // 1 條查詢客戶 + 1 條查詢訂單（含訂單項目），與訂單筆數無關
+       assertEquals("我的訂單頁面的 SQL 數量不正確", 2, statistics.getPrepareStatementCount());
+   }
+   @Test
+   @Transactional // 測試結束後回滾，不會留下訂單
+   public void testOrderInsertsAreBatched() {
+       List<Customer> customers = customerService.getAllCustomers();
+       List<Product> products = productService.getAllProducts();
+       assumeFalse("資料庫沒有客戶", customers.isEmpty());
+       // 結帳尖峰時購物車最多 30 項商品：超過一批（batch_size）且不是整數倍
+       int itemCount = Math.min(products.size(), 30);
+       int batchSize = env.getProperty("hibernate.jdbc.batch_size", Integer.class, 20);
+       assumeTrue("產品數量不足，無法比較批次寫入", itemCount > batchSize);
+       Order order = new Order(customers.get(0), "測試收件人", "0912345678", "測試地址");
+       order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+       for (int i = 0; i < itemCount; i++) {
+           order.addOrderItem(new OrderItem(products.get(i), 1));
+       }
+       order.calculateTotalAmount();
+       sessionFactory.getCurrentSession().flush();
+       statistics.clear();
+       orderDAO.save(order);
+       sessionFactory.getCurrentSession().flush();
+       System.out.println("儲存訂單：" + itemCount + " 項商品，SQL 數量 " + statistics.getPrepareStatementCount());
+       assertEquals("新增的資料筆數不正確", itemCount + 1, statistics.getEntityInsertCount());
+       // 1 條訂單 INSERT + 訂單項目每 batch_size 筆一條 INSERT（30 項、batch_size 20 時共 3 條）
+       // 配號表取號使用獨立的連線，不計入 getPrepareStatementCount()
+       // 改用配號表之前（IDENTITY）每筆都是一條：itemCount + 1
+       long expected = 1 + (itemCount + batchSize - 1) / batchSize;
+       assertEquals("訂單項目沒有批次寫入", expected, statistics.getPrepareStatementCount());
+   }
+   // 存取訂單列表頁面會用到的欄位
+   private void touchOrderPage(List<Order> orders) {
+       for (Order order : orders) {
+           order.getCustomer().getCustName();
+           for (OrderItem item : order.getOrderItems()) {
+               item.getProductName();
+               item.getProduct().getProdName();
+           }
+       }
+   }
+}
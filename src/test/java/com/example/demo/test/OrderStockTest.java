@@ -0,0 +1,113 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.example.demo.dao.CustomerDAO;
+import com.example.demo.dao.OrderDAO;
+import com.example.demo.model.Cart;
+import com.example.demo.model.CartItem;
+import com.example.demo.model.Customer;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderItem;
+import com.example.demo.model.Product;
+import com.example.demo.service.CartService;
+import com.example.demo.service.InventoryService;
+import com.example.demo.service.OrderEventBus;
+import com.example.demo.service.OrderNumberGenerator;
+import com.example.demo.service.ProductAutocompleteService;
+import com.example.demo.service.impl.OrderServiceImpl;
+public class OrderStockTest {
+   private static final Long FLASH_SALE = 1L;
+   private static final Long NORMAL = 2L;
+   private OrderServiceImpl orderService;
+   private Order saved;
+   //產品編號 → 歸還的數量與是否歸還資料庫庫存
+   private final Map<Long, String> releases = new TreeMap<>();
+   private boolean pendingCancelled;
+   @Before
+   public void setUp() {
+       Customer customer = new Customer();
+       customer.setCustNum(10L);
+       Cart cart = new Cart(customer);
+       cart.addCartItem(new CartItem(product(FLASH_SALE), 2));
+       cart.addCartItem(new CartItem(product(NORMAL), 3));
+       orderService = new OrderServiceImpl();
+       ReflectionTestUtils.setField(orderService, "customerDAO", stub(CustomerDAO.class, (method, args) ->
+               "findById".equals(method) ? customer : null));
+       ReflectionTestUtils.setField(orderService, "cartService", stub(CartService.class, (method, args) ->
+               "getCartByCustomerId".equals(method) ? cart : null));
+       ReflectionTestUtils.setField(orderService, "orderDAO", stub(OrderDAO.class, (method, args) -> {
+           if ("save".equals(method)) {
+               saved = (Order) args[0];
+               saved.setOrderId(100L);
+           }
+           return "findByIdForUpdate".equals(method) ? saved : null;
+       }));
+       ReflectionTestUtils.setField(orderService, "orderNumberGenerator", (OrderNumberGenerator) () -> "ORD1");
+       ReflectionTestUtils.setField(orderService, "productAutocompleteService",
+               stub(ProductAutocompleteService.class, (method, args) -> null));
+       ReflectionTestUtils.setField(orderService, "orderEventBus", stub(OrderEventBus.class, (method, args) -> null));
+       // 產品 1 限時搶購中（只在記憶體中扣除），產品 2 為一般商品（結帳時扣除資料庫庫存）
+       ReflectionTestUtils.setField(orderService, "inventoryService", stub(InventoryService.class, (method, args) -> {
+           switch (method) {
+               case "reserve":
+                   return FLASH_SALE.equals(args[0]) ? InventoryService.Reservation.PENDING
+                           : InventoryService.Reservation.RESERVED;
+               case "cancelPending":
+                   return pendingCancelled;
+               case "release":
+                   releases.put((Long) args[0], args[1] + (((Boolean) args[2]) ? "：資料庫" : "：記憶體"));
+                   return null;
+               default:
+                   return null;
+           }
+       }));
+   }
+   @Test
+   public void testMixedCartMarksOnlyFlashSaleItemsPending() {
+       Order order = orderService.createOrderFromCart(10L, "王小明", "0912345678", "台北市", null);
+       assertTrue(order.isStockPending());
+       for (OrderItem item : order.getOrderItems()) {
+           assertEquals(FLASH_SALE.equals(item.getProduct().getProdNum()), item.isStockPending());
+       }
+   }
+   @Test
+   public void testCancelBeforeReconcileReturnsNormalProductStock() {
+       orderService.createOrderFromCart(10L, "王小明", "0912345678", "台北市", null);
+       pendingCancelled = true;
+       orderService.cancelOrder(100L);
+       // 搶購商品尚未寫入資料庫，只歸還記憶體；一般商品結帳時已扣除資料庫庫存，必須歸還
+       assertEquals("2：記憶體", releases.get(FLASH_SALE));
+       assertEquals("3：資料庫", releases.get(NORMAL));
+       assertFalse(saved.isStockReserved());
+   }
+   @Test
+   public void testCancelAfterReconcileReturnsAllStock() {
+       orderService.createOrderFromCart(10L, "王小明", "0912345678", "台北市", null);
+       pendingCancelled = false;
+       orderService.cancelOrder(100L);
+       assertEquals("2：資料庫", releases.get(FLASH_SALE));
+       assertEquals("3：資料庫", releases.get(NORMAL));
+   }
+   private static Product product(Long prodNum) {
+       Product product = new Product("產品" + prodNum, "類別", new BigDecimal("100"), null, null, null);
+       product.setProdNum(prodNum);
+       return product;
+   }
+   private interface Answer {
+       Object answer(String method, Object[] args);
+   }
+   //只實作測試用到的方法，其餘回傳 null
+   private static <T> T stub(Class<T> type, Answer answer) {
+       return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+               (proxy, method, args) -> answer.answer(method.getName(), args)));
+   }
+}
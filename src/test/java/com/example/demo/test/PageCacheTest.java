@@ -0,0 +1,78 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import com.example.demo.util.PageCache;
+public class PageCacheTest {
+   private PageCache cache;
+   @Before
+   public void setUp() {
+       cache = new PageCache(2, 100);
+   }
+   @Test
+   public void testKeyIncludesLocaleAndUserType() {
+       cache.put(listing("sort=price_asc", Locale.ENGLISH, null), bytes(10), cache.generation());
+       assertNotNull(cache.get(listing("sort=price_asc", Locale.ENGLISH, null)));
+       assertNull(cache.get(listing("sort=price_asc", Locale.TRADITIONAL_CHINESE, null)));
+       assertNull(cache.get(listing("sort=price_asc", Locale.ENGLISH, "admin")));
+   }
+   @Test
+   public void testEvictsLeastRecentlyUsed() {
+       PageCache.Key a = detail(1L);
+       PageCache.Key b = detail(2L);
+       PageCache.Key c = detail(3L);
+       cache.put(a, bytes(10), cache.generation());
+       cache.put(b, bytes(10), cache.generation());
+       cache.get(a);
+       cache.put(c, bytes(10), cache.generation());
+       assertNotNull(cache.get(a));
+       assertNull(cache.get(b));
+       assertNotNull(cache.get(c));
+       // 超過總位元組數上限時也會淘汰
+       cache.put(b, bytes(95), cache.generation());
+       assertEquals(1, cache.snapshot().get("entries"));
+       assertEquals(3L, cache.snapshot().get("evictionCount"));
+   }
+   @Test
+   public void testInvalidateProductClearsListingsAndItsDetail() {
+       PageCache.Key listing = listing(null, Locale.ENGLISH, null);
+       cache.put(listing, bytes(10), cache.generation());
+       cache.put(detail(2L), bytes(10), cache.generation());
+       cache.invalidateProduct(1L);
+       assertNull(cache.get(listing));
+       assertArrayEquals(bytes(10), cache.get(detail(2L)));
+   }
+   @Test
+   public void testStaleRenderIsNotStored() {
+       long generation = cache.generation();
+       // 渲染期間產品被修改
+       cache.invalidateProduct(1L);
+       cache.put(detail(1L), bytes(10), generation);
+       assertNull(cache.get(detail(1L)));
+   }
+   @Test
+   public void testHitRatio() {
+       cache.put(detail(1L), bytes(10), cache.generation());
+       cache.get(detail(1L));
+       cache.get(detail(2L));
+       Map<String, Object> stats = cache.snapshot();
+       assertEquals(1L, stats.get("hitCount"));
+       assertEquals(1L, stats.get("missCount"));
+       assertEquals(0.5, (Double) stats.get("hitRatio"), 0.0001);
+   }
+   private static PageCache.Key listing(String query, Locale locale, String userType) {
+       return new PageCache.Key("products", PageCache.LISTING, query, locale, userType);
+   }
+   private static PageCache.Key detail(Long prodNum) {
+       return new PageCache.Key("product-detail", prodNum, null, Locale.ENGLISH, null);
+   }
+   private static byte[] bytes(int length) {
+       return new byte[length];
+   }
+}
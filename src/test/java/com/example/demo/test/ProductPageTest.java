@@ -0,0 +1,87 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.example.demo.model.CatalogSnapshot;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductPage;
+import com.example.demo.service.CatalogSnapshotService;
+import com.example.demo.service.ProductSearchService;
+import com.example.demo.service.impl.ProductServiceImpl;
+public class ProductPageTest {
+   private ProductServiceImpl productService;
+   private CatalogSnapshot snapshot;
+   //全文搜尋索引依相關程度回傳的產品編號
+   private List<Long> ranked;
+   @Before
+   public void setUp() {
+       List<Product> products = new ArrayList<>();
+       for (long prodNum = 1; prodNum <= 6; prodNum++) {
+           products.add(product(prodNum));
+       }
+       snapshot = CatalogSnapshot.of(products);
+       ranked = new ArrayList<>(Arrays.asList(5L, 3L, 1L, 6L, 2L, 4L));
+       productService = new ProductServiceImpl();
+       ReflectionTestUtils.setField(productService, "catalogSnapshotService", (CatalogSnapshotService) Proxy.newProxyInstance(
+               CatalogSnapshotService.class.getClassLoader(), new Class<?>[] { CatalogSnapshotService.class },
+               (proxy, method, args) -> "getSnapshot".equals(method.getName()) ? snapshot : null));
+       ReflectionTestUtils.setField(productService, "productSearchService", (ProductSearchService) Proxy.newProxyInstance(
+               ProductSearchService.class.getClassLoader(), new Class<?>[] { ProductSearchService.class },
+               (proxy, method, args) -> "search".equals(method.getName()) ? new ArrayList<>(ranked) : null));
+   }
+   @Test
+   public void testRelevancePagesFollowRank() {
+       ProductPage first = productService.getProductPage("手機", null, null, null, 2);
+       assertEquals(Arrays.asList(5L, 3L), ids(first));
+       ProductPage second = productService.getProductPage("手機", null, null, first.getNextCursor(), 2);
+       assertEquals(Arrays.asList(1L, 6L), ids(second));
+       ProductPage third = productService.getProductPage("手機", null, null, second.getNextCursor(), 2);
+       assertEquals(Arrays.asList(2L, 4L), ids(third));
+       assertNull(third.getNextCursor());
+   }
+   @Test
+   public void testDeletedProductsDoNotShortenPage() {
+       // 產品 3 已刪除，但索引還沒更新
+       snapshot = snapshot.without(3L);
+       ProductPage first = productService.getProductPage("手機", null, null, null, 2);
+       assertEquals(Arrays.asList(5L, 1L), ids(first));
+       ProductPage second = productService.getProductPage("手機", null, null, first.getNextCursor(), 2);
+       assertEquals(Arrays.asList(6L, 2L), ids(second));
+   }
+   @Test
+   public void testCursorFollowsProductWhenRankShifts() {
+       ProductPage first = productService.getProductPage("手機", null, null, null, 2);
+       // 索引更新，新產品排在最前面
+       ranked.add(0, 4L);
+       ranked.remove(ranked.lastIndexOf(4L));
+       ProductPage second = productService.getProductPage("手機", null, null, first.getNextCursor(), 2);
+       assertEquals(Arrays.asList(1L, 6L), ids(second));
+   }
+   @Test
+   public void testMissingCursorProductReturnsEmptyPage() {
+       ProductPage first = productService.getProductPage("手機", null, null, null, 2);
+       // 上一頁最後一筆已不在搜尋結果中：不從第一頁重複顯示
+       ranked.remove(3L);
+       ProductPage second = productService.getProductPage("手機", null, null, first.getNextCursor(), 2);
+       assertTrue(second.getProducts().isEmpty());
+       assertNull(second.getNextCursor());
+   }
+   private static List<Long> ids(ProductPage page) {
+       return page.getProducts().stream().map(Product::getProdNum).collect(Collectors.toList());
+   }
+   private static Product product(Long prodNum) {
+       Product product = new Product("產品" + prodNum, "3C", new BigDecimal("100"), null, null, null);
+       product.setProdNum(prodNum);
+       return product;
+   }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import com.example.demo.util.Bm25Index;
+import com.example.demo.util.SearchTokenizer;
+public class ProductSearchIndexTest {
+   private Bm25Index index;
+   @Before
+   public void setUp() {
+       index = new Bm25Index();
+       put(1L, "藍牙耳機 降噪");
+       put(2L, "有線耳機");
+       put(3L, "藍牙喇叭");
+       put(4L, "iPhone 15 手機殼");
+   }
+   @Test
+   public void testTokenizerUsesBigramsForChinese() {
+       assertEquals(Arrays.asList("藍牙", "牙耳", "耳機"), SearchTokenizer.tokenizeForQuery("藍牙耳機"));
+       // 全形英數字轉半形、轉小寫
+       assertEquals(Arrays.asList("iphone", "15"), SearchTokenizer.tokenizeForQuery("ＩＰｈｏｎｅ　１５"));
+       // 只有一個中文字時使用單字
+       assertEquals(Arrays.asList("殼"), SearchTokenizer.tokenizeForQuery("殼"));
+   }
+   @Test
+   public void testSearchRequiresAllTerms() {
+       assertEquals(Arrays.asList(1L), search("藍牙耳機"));
+       assertEquals(Arrays.asList(4L), search("iphone 殼"));
+       assertTrue(search("鍵盤").isEmpty());
+   }
+   @Test
+   public void testShorterDocumentRanksHigher() {
+       // 兩筆都包含「耳機」，較短的「有線耳機」分數較高
+       assertEquals(Arrays.asList(2L, 1L), search("耳機"));
+   }
+   @Test
+   public void testIncrementalUpdateAndRemove() {
+       put(2L, "有線喇叭");
+       assertEquals(Arrays.asList(1L), search("耳機"));
+       index.remove(1L);
+       assertTrue(search("耳機").isEmpty());
+       assertEquals(3, index.size());
+   }
+   private List<Long> search(String keyword) {
+       return index.search(SearchTokenizer.tokenizeForQuery(keyword), null, 10);
+   }
+   private void put(Long id, String text) {
+       Map<String, Integer> terms = new HashMap<>();
+       for (String term : SearchTokenizer.tokenizeForIndex(text)) {
+           terms.merge(term, 1, Integer::sum);
+       }
+       index.put(id, terms);
+   }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import com.example.demo.util.ShardedStockCounter;
+public class ShardedStockCounterTest {
+   @Test
+   public void testStockSplitAcrossShards() {
+       ShardedStockCounter counter = new ShardedStockCounter(10, 4);
+       assertEquals(10, counter.available());
+       // 單一分片只有 2 ~ 3 個，購買 7 個需要從多個分片湊齊
+       assertTrue(counter.tryAcquire(7));
+       assertEquals(3, counter.available());
+       assertFalse(counter.tryAcquire(4));
+       assertEquals(3, counter.available());
+       assertTrue(counter.tryAcquire(3));
+       assertFalse(counter.tryAcquire(1));
+       assertTrue(counter.isSoldOut());
+   }
+   @Test
+   public void testReleaseClearsSoldOut() {
+       ShardedStockCounter counter = new ShardedStockCounter(1, 8);
+       assertTrue(counter.tryAcquire(1));
+       assertFalse(counter.tryAcquire(1));
+       assertTrue(counter.isSoldOut());
+       counter.release(1);
+       assertFalse(counter.isSoldOut());
+       assertTrue(counter.tryAcquire(1));
+   }
+   @Test
+   public void testConcurrentCheckoutsNeverOversell() throws Exception {
+       int stock = 1000;
+       ShardedStockCounter counter = new ShardedStockCounter(stock, 8);
+       AtomicInteger sold = new AtomicInteger();
+       CountDownLatch startSignal = new CountDownLatch(1);
+       List<Thread> threads = new ArrayList<>();
+       for (int t = 0; t < 16; t++) {
+           Thread thread = new Thread(() -> {
+               try {
+                   startSignal.await();
+               } catch (InterruptedException e) {
+                   return;
+               }
+               for (int i = 0; i < 200; i++) {
+                   int quantity = 1 + i % 3;
+                   if (counter.tryAcquire(quantity)) {
+                       sold.addAndGet(quantity);
+                   }
+               }
+           });
+           thread.start();
+           threads.add(thread);
+       }
+       startSignal.countDown();
+       for (Thread thread : threads) {
+           thread.join();
+       }
+       assertEquals(stock - sold.get(), counter.available());
+       assertTrue("超賣：" + sold.get(), sold.get() <= stock);
+       assertTrue(sold.get() > stock - 3);
+   }
+   @Test
+   public void testFailedMultiShardTakeDoesNotLeaveSoldOut() throws Exception {
+       // 每個分片只有 1 個，每次購買 5 個都要從多個分片湊齊，同時有兩個執行緒各湊到一部分時都會失敗；成功後立即歸還
+       int stock = 8;
+       ShardedStockCounter counter = new ShardedStockCounter(stock, 8);
+       CountDownLatch startSignal = new CountDownLatch(1);
+       List<Thread> threads = new ArrayList<>();
+       for (int t = 0; t < 8; t++) {
+           Thread thread = new Thread(() -> {
+               try {
+                   startSignal.await();
+               } catch (InterruptedException e) {
+                   return;
+               }
+               for (int i = 0; i < 20000; i++) {
+                   if (counter.tryAcquire(5)) {
+                       counter.release(5);
+                   }
+               }
+           });
+           thread.start();
+           threads.add(thread);
+       }
+       startSignal.countDown();
+       for (Thread thread : threads) {
+           thread.join();
+       }
+       assertEquals(stock, counter.available());
+       assertFalse(counter.isSoldOut());
+       assertTrue(counter.tryAcquire(stock));
+   }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import com.example.demo.util.SuggestionTrie;
+public class SuggestionTrieTest {
+   private SuggestionTrie trie;
+   @Before
+   public void setUp() {
+       trie = new SuggestionTrie(3);
+       trie.put(1L, "藍牙耳機", 50);
+       trie.put(2L, "藍牙喇叭", 80);
+       trie.put(3L, "藍色T恤", 10);
+       trie.put(4L, "iPhone 15", 30);
+   }
+   @Test
+   public void testSuggestOrdersBySales() {
+       assertEquals(Arrays.asList("藍牙喇叭", "藍牙耳機", "藍色T恤"), trie.suggest("藍", 10));
+       assertEquals(Arrays.asList("藍牙喇叭"), trie.suggest("藍牙", 1));
+       // 不區分大小寫、全形半形
+       assertEquals(Arrays.asList("iPhone 15"), trie.suggest("ＩＰＨ", 10));
+       assertTrue(trie.suggest("鍵盤", 10).isEmpty());
+   }
+   @Test
+   public void testSalesIncreaseReordersSuggestions() {
+       trie.addWeight(1L, 100);
+       assertEquals(Arrays.asList("藍牙耳機", "藍牙喇叭"), trie.suggest("藍牙", 10));
+   }
+   @Test
+   public void testRemoveBringsBackLowerRankedEntries() {
+       // 每個節點只保留 3 筆，刪除後較低名次的項目要補上
+       trie.put(5L, "藍寶石戒指", 5);
+       assertEquals(Arrays.asList("藍牙喇叭", "藍牙耳機", "藍色T恤"), trie.suggest("藍", 10));
+       trie.remove(2L);
+       assertEquals(Arrays.asList("藍牙耳機", "藍色T恤", "藍寶石戒指"), trie.suggest("藍", 10));
+   }
+   @Test
+   public void testRenameKeepsWeight() {
+       trie.putText(2L, "無線喇叭");
+       assertEquals(Arrays.asList("藍牙耳機", "藍色T恤"), trie.suggest("藍", 10));
+       assertEquals(Arrays.asList("無線喇叭"), trie.suggest("無線", 10));
+       trie.put(6L, "無線滑鼠", 1);
+       assertEquals(Arrays.asList("無線喇叭", "無線滑鼠"), trie.suggest("無線", 10));
+   }
+}